@@ -6,6 +6,21 @@ import org.apache.pdfbox.exceptions.COSVisitorException;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import models.BKTree;
+import models.CaseFolding;
+import models.ChapterText;
+import models.Corrections;
+import models.Dictionary;
+import models.DictionaryCompiler;
+import models.FlaggedWord;
+import models.LineQueue;
+import models.LineSplitter;
+import models.ReasonCode;
+import models.SpellCheckResult;
+import models.SpellChecker;
+import models.Suggester;
+import models.SymSpellIndex;
+import models.WordSet;
 import views.AppGUI;
 
 import javafx.stage.Stage;
@@ -21,7 +36,15 @@ import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
 import java.text.SimpleDateFormat;
 import java.util.*;
-import java.util.regex.Pattern;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 
 import org.apache.tika.exception.TikaException;
 import org.apache.tika.metadata.Metadata;
@@ -61,37 +84,39 @@ public class AppController {
             statusText = value;
         }
 
-        private String getText(){
+        String getText(){
             return statusText;
         }
     }
 
     /**
-     * Reason why the word was flagged as an exception.
+     * This is the type or extension of the file being processed.
      */
-    private enum ReasonCode {
-        BLANK_SPACE("Extra blank space"),
-        BRACKETS_ODD("Extra or missing bracket () [] {} <>"),
-        QUOTES_ODD("Extra or missing quote \""),
-        DUPLICATE("Duplicate word"),
-        NOT_CAPITAL("Should be capitalised"),
-        NOT_IN_DICT("Not found in dictionaries");
-
-        private String reasonCode;
-        ReasonCode(String value){
-            reasonCode = value;
-        }
+    private enum FileType {
+        PDF, IDML, WORD, OTHER
+    }
 
-        private String getText(){
-            return reasonCode;
-        }
+    /**
+     * This is the kind of index suggestions are found with. A SymSpell index answers almost instantly
+     * but takes a lot of memory; a BK-tree takes little memory but each search takes a few milliseconds.
+     */
+    private enum SuggestionIndex {
+        SYMSPELL, BKTREE
     }
 
     /**
-     * This is the type or extension of the file being processed.
+     * What is needed to go back to the contents and exceptions as they were before a change, or after
+     * one which has been undone: the contents, which share all but the changed lines with the current
+     * ones, and the changes which take the exceptions back, in the order they were made. Only what the
+     * change replaced is kept, so the history is not limited.
      */
-    private enum FileType {
-        PDF, IDML, WORD, OTHER
+    private static final class Revision {
+        private final ChapterText contents;
+        private final List<ExceptionList.Change> exceptionChanges = new ArrayList<>();
+
+        Revision(ChapterText contents) {
+            this.contents = contents;
+        }
     }
 
     private AppGUI gui;
@@ -101,8 +126,14 @@ public class AppController {
 
     private Set<String> availableProjects;      // List of projects available
 
-    private Set<String> genDic;  // The Generic Dictionary file to spellcheck against
+    private Dictionary genDic;  // The Generic Dictionary file to spellcheck against
     private Map<String, Map<String, String>> bookDic; // The Book/Project-specific Dictionary to spellcheck against
+    private SpellChecker spellChecker;      // Checks chapters against both dictionaries
+    private CompletableFuture<Suggester> suggester;  // Suggestion index, built in the background
+    private CompletableFuture<List<String>> pendingSuggestions;    // For the current exception
+    private String genDicRevision;      // DropBox path and revision the dictionaries in memory were read from
+    private String genDicLanguage;
+    private String bookDicRevision;
 
     private String fileSeparator = File.separator;
     private String rootDir = System.getProperty("user.dir") + fileSeparator;
@@ -110,14 +141,30 @@ public class AppController {
     private String userName;
 
     private Map<String,Boolean> spellingChecks;
-    private Map<Integer, Map<String, String>> exceptionsList;
-    private Map<Integer, Map<String, String>> lastExceptionsChanged;    // Used in undo apply change
+    private ExceptionList exceptionsList;
     private boolean viewOnlyNotReviewedException;
-    private String[] contents;
-    private String[] previousContentsForUndo;
+    private ChapterText contents;
+    private int[] lastChangedLines = new int[0];    // Lines changed by the last change, undo or redo
+    private Corrections queuedCorrections = new Corrections();  // Made to the exceptions, not yet to the contents
+    private boolean changesQueued;      // The last revision holds changes whose corrections are still queued
+    private final Deque<Revision> undoHistory = new ArrayDeque<>();     // Most recent first
+    private final Deque<Revision> redoHistory = new ArrayDeque<>();
     private FileType fileType;
     private String sourceFileLocation;
-    private boolean convertedFile;
+    private String chapterFileLocation;     // Chapter file chosen, converted again if its processing is cancelled
+    private CompletableFuture<Boolean> conversion;              // Chapter file being converted to text
+    private LineQueue chapterLines;     // Lines of the chapter being converted, until they are spellchecked
+    private TaskProgress chapterConversionProgress;  // Cancelling it cancels chapterLines too
+    private CompletableFuture<Boolean> genericDictionaryImport; // Dictionaries being imported for the project
+    private CompletableFuture<Boolean> projectDictionaryImport;
+    private static final ThreadFactory DAEMON_THREADS = runnable -> {
+        Thread thread = new Thread(runnable);
+        thread.setDaemon(true);
+        return thread;
+    };
+    private final ExecutorService backgroundTasks = Executors.newFixedThreadPool(3, DAEMON_THREADS);
+    private final ExecutorService userTasks = Executors.newSingleThreadExecutor(DAEMON_THREADS);   // One at a time
+    private volatile TaskProgress progress = new TaskProgress();    // Of the chapter being processed, or finished
     private int nextEntryNo;
     private String projectName;
     private String chapterName;
@@ -126,7 +173,10 @@ public class AppController {
 
     private DbxRequestConfig config;
     private DbxClient client;
+    private DropBoxCache dropBoxCache;
     private String DbxWorkingDir;
+    private final int MAX_SUGGESTIONS = 8;
+    private final int LINE_QUEUE_CAPACITY = 4096;    // Lines parsed but not yet spellchecked
     private final String NO_CONN_ERR_MSG = "An error occurred during execution. The application requires an active " +
             "connection to the internet and yours appears to be down. \nPlease reset your connection " +
             "and try again.";
@@ -135,6 +185,8 @@ public class AppController {
      * Set up the application and initiate the login process.
      */
     public void start(Stage stage) {
+        Metrics.setErrorLog(this::writeToErrorLog);
+
         // Empty out temp folder, just in case.
         try {
             FileUtils.cleanDirectory(new File(rootDir + "temp"));
@@ -163,6 +215,20 @@ public class AppController {
         gui.drawLoginWindow();
     }
 
+    /**
+     * Called when the application is closing. Writes the timings and counts of the session to a
+     * file in the metrics folder, so the workstations can be compared.
+     */
+    public void stop() {
+        File metricsFile = new File(rootDir + "metrics" + fileSeparator + "metrics_" +
+                new SimpleDateFormat("ddMMMyyyy_HHmmss").format(new Date()) + ".txt");
+        try {
+            Metrics.dump(metricsFile, userName);
+        } catch(IOException ioe) {
+            writeToErrorLog(ioe.toString(), ioe.getStackTrace());
+        }
+    }
+
     /**
      * There is a process when connecting to dropBox where the user has to get an authorisation code,
      * which will be used continually to connect to dropBox. Note this process only has to be done once,
@@ -231,6 +297,7 @@ public class AppController {
         }
 
         client = new DbxClient(config, DROPBOX_AUTH_CODE);
+        dropBoxCache = new DropBoxCache(client, new File(rootDir + "cache"));
         return true;
     }
 
@@ -383,8 +450,7 @@ public class AppController {
                 projectChapters.add(child.name);
             }
         } catch (DbxException dbxE) {
-            if(dbxE.getCause().getClass() == UnknownHostException.class ||
-                    dbxE.getCause().getClass() == NoRouteToHostException.class) {
+            if(isNoConnection(dbxE)) {
                 gui.displayErrorMessage(NO_CONN_ERR_MSG);
                 gui.blankMainMenuScene(); // Reset the screen
                 return null;
@@ -395,6 +461,9 @@ public class AppController {
             }
         }
 
+        // Start downloading the project's dictionaries now, while the user fills in the rest of the main menu.
+        startDictionaryImports();
+
         // If size == 0, then there are no chapters in the project yet.
         return projectChapters.size() == 0 ? null : projectChapters.toArray(new String[projectChapters.size()]);
     }
@@ -409,16 +478,17 @@ public class AppController {
      *                              spelling errors, if any.
      * @return boolean Returns false if any errors occurred while processing the file.
      */
-    public synchronized boolean processFile(boolean newChapter, String chapterName, String saveRemExceptionsTo) {
-        // Since importing the generic file is started on another thread, before this method is called,
-        // This method needs to wait until the generic file has been imported.
-        while(!convertedFile) {
-            try {
-                this.wait();
-            } catch(InterruptedException ie) {
-                writeToErrorLog(ie.toString(), ie.getStackTrace());
-                return false;
-            }
+    public boolean processFile(boolean newChapter, String chapterName, String saveRemExceptionsTo) {
+        TaskProgress processProgress = progress;
+        // Converting the chapter file was started when the file was chosen and importing the dictionaries
+        // when the project was chosen. They run at the same time, so this only waits for the slowest one.
+        if(conversion == null) {
+            writeToErrorLog("Spellchecking was started before a chapter file was chosen.",
+                    Thread.currentThread().getStackTrace());
+            return false;
+        }
+        if(genericDictionaryImport == null || projectDictionaryImport == null) {
+            startDictionaryImports();
         }
 
         this.isFirstLine = true;
@@ -429,11 +499,35 @@ public class AppController {
         // Default spelling checks
         if(spellingChecks == null) { populateDefaultSpellChecks(); }
 
-        // Import both generic and project dictionaries.
-        if(!importGenericDictionary() || !importProjectDictionary()) { return false; }
+        // Wait for the chapter file and both generic and project dictionaries. All three are waited for,
+        // and a failed import is started again on the next attempt.
+        boolean dictionariesImported = await(genericDictionaryImport, processProgress) &
+                await(projectDictionaryImport, processProgress);
+        if(processProgress.isCancelled()) {
+            return false;
+        }
+        if(!dictionariesImported) {
+            genericDictionaryImport = null;
+            projectDictionaryImport = null;
+            return false;
+        }
+        if(spellChecker == null) {
+            spellChecker = new SpellChecker(genDic, bookDic.keySet());
+            startBuildingSuggester();
+        }
 
-        // Actual spellchecking performed here.
-        if(!spellCheckFile()) { return false; }
+        // Actual spellchecking performed here. A newly chosen chapter is checked as it is converted,
+        // taking the lines from the conversion as they are parsed.
+        if(chapterLines != null) {
+            LineQueue lines = chapterLines;
+            chapterLines = null;
+            if(!spellCheckStream(lines) | !conversion.join()) { return false; }
+        } else if(!conversion.join() || !spellCheckFile()) {
+            return false;
+        }
+        if(processProgress.isCancelled()) {
+            return false;
+        }
 
         // Resetting, exception processing begins at the first index.
         isFirstLine = true;
@@ -443,40 +537,151 @@ public class AppController {
     }
 
     /**
-     * Download from DropBox and read the project dictionary file into memory.
-     * @return returns whether or not the dictionary was imported without errors.
+     * Get ready to process the chosen chapter, before processFile is run. If processing it was cancelled,
+     * which stops its conversion too, it is converted again.
+     * @return the progress of processing the chapter, which the user can cancel it with.
      */
-    private boolean importProjectDictionary() {
-        // TODO should start importing with convert to generic
-        // Project Dictionary will be deleted only after the program has finished as some entries may still need to be written to it.
-        String dicPath = rootDir + "temp" + fileSeparator + "projectDic.txt";
-        File dictionaryFile = new File(dicPath);
-        bookDic = new HashMap<>();
-        Map<String, String> bookDicDetails;
-        String[] currentLineDetails;
-        String currentLine;
+    public TaskProgress prepareProcessing() {
+        if(progress.isCancelled() && chapterFileLocation != null) {
+            convertToGenericTextFile(chapterFileLocation);
+        } else if(chapterLines == null) {
+            // Already converted, so only spellchecked again.
+            progress = new TaskProgress();
+        }
+        return progress;
+    }
 
-        // Downloading Project Dictionary from DropBox.
-        try {
-            // Create temp project dictionary file.
-            if (!dictionaryFile.createNewFile()) {
-                writeToErrorLog("Error in 'myFile.createNewFile()' while creating temporary project dictionary file." +
-                                " FilePath: " + dicPath +
-                                " . \nOperating System: " + System.getProperty("os.name"),
-                        Thread.currentThread().getStackTrace());
+    /**
+     * Get ready to finish the chapter, before finishProcessing is run.
+     * @return the progress of finishing the chapter.
+     */
+    public TaskProgress prepareFinishing() {
+        progress = new TaskProgress();
+        return progress;
+    }
+
+    /**
+     * Returns the progress of the chapter being converted and processed, or being finished.
+     * @return the progress.
+     */
+    public TaskProgress getProgress() {
+        return progress;
+    }
+
+    /**
+     * Run a long task the user waits for, such as processFile or finishProcessing, on the thread kept for
+     * them. They are run one at a time, so a task which has been cancelled stops before the next one starts.
+     * @param task The task to run.
+     */
+    public void runUserTask(Runnable task) {
+        userTasks.execute(task);
+    }
+
+    /**
+     * Wait for a task on a background thread, giving up if the user cancels.
+     * @param task The task to wait for.
+     * @param taskProgress The progress the user cancels with.
+     * @return whether or not the task succeeded, false if cancelled.
+     */
+    private boolean await(CompletableFuture<Boolean> task, TaskProgress taskProgress) {
+        while(!taskProgress.isCancelled()) {
+            try {
+                return task.get(100, TimeUnit.MILLISECONDS);
+            } catch(TimeoutException te) {
+                // Checking for cancellation every so often.
+            } catch(InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                return false;
+            } catch(ExecutionException ee) {
+                writeToErrorLog(ee.toString(), ee.getStackTrace());
                 return false;
             }
-        } catch (IOException ioe) {
-            writeToErrorLog(ioe.toString(), ioe.getStackTrace());
-            return false;
         }
+        return false;
+    }
+
+    /**
+     * Start building the suggestion index over the dictionaries now in memory. Spellchecking does not
+     * wait for it; until it is built no suggestions are given.
+     */
+    private void startBuildingSuggester() {
+        Dictionary generic = genDic;
+        WordSet project = new WordSet(bookDic.keySet());
+        SuggestionIndex index = getSuggestionIndex(genDicLanguage);
+        suggester = CompletableFuture.supplyAsync(() -> index == SuggestionIndex.BKTREE ?
+                        new BKTree(generic, project) : (Suggester) new SymSpellIndex(generic, project), backgroundTasks)
+                .exceptionally(e -> {
+                    writeToErrorLog(e.toString(), e.getStackTrace());
+                    return null;
+                });
+    }
+
+    /**
+     * Read which kind of suggestion index this workstation uses for the language, from the local
+     * settings file, so machines short on memory can use the smaller BK-tree.
+     * @param language The language of the generic dictionary.
+     * @return the kind of index, SymSpell unless the settings file says otherwise.
+     */
+    private SuggestionIndex getSuggestionIndex(String language) {
+        File settingsFile = new File(rootDir + "settings" + fileSeparator + "suggestions.txt");
+        if(!settingsFile.exists()) {
+            return SuggestionIndex.SYMSPELL;
+        }
+
+        String currentLine;
+        try(BufferedReader br = new BufferedReader(new FileReader(settingsFile))) {
+            // Line example - English(GB):BKTREE
+            while((currentLine = br.readLine()) != null) {
+                String[] setting = currentLine.split(":");
+                if(setting.length == 2 && setting[0].equals(language)) {
+                    return SuggestionIndex.valueOf(setting[1].trim().toUpperCase());
+                }
+            }
+        } catch(IOException | IllegalArgumentException e) {
+            writeToErrorLog(e.toString(), e.getStackTrace());
+        }
+        return SuggestionIndex.SYMSPELL;
+    }
+
+    /**
+     * Start importing the generic and project dictionaries of the current project on background threads.
+     */
+    private void startDictionaryImports() {
+        genericDictionaryImport = runAfter(genericDictionaryImport, this::importGenericDictionary);
+        projectDictionaryImport = runAfter(projectDictionaryImport, this::importProjectDictionary);
+    }
+
+    /**
+     * Run the task on a background thread once the previous task of the same kind has finished,
+     * so that e.g. two conversions never write the temp chapter file at the same time.
+     * @param previous The previous task of the same kind, may be null.
+     * @param task The task to run, returning whether or not it succeeded.
+     * @return the running task.
+     */
+    private CompletableFuture<Boolean> runAfter(CompletableFuture<Boolean> previous, Supplier<Boolean> task) {
+        CompletableFuture<Boolean> start = previous == null ? CompletableFuture.completedFuture(true) : previous;
+        return start.handleAsync((previousResult, previousError) -> task.get(), backgroundTasks)
+                .exceptionally(e -> {
+                    writeToErrorLog(e.toString(), e.getStackTrace());
+                    return false;
+                });
+    }
+
+    /**
+     * Read the project dictionary file into memory. The file is only downloaded from DropBox if it
+     * has changed since it was last downloaded, and if it is unchanged since the dictionary was last
+     * read in this session, the dictionary already in memory is kept.
+     * @return returns whether or not the dictionary was imported without errors.
+     */
+    private boolean importProjectDictionary() {
+        String dbxPath = DbxWorkingDir + "projectDictionary.txt";
+        File dictionaryFile;
 
-        try (FileOutputStream outputStream = new FileOutputStream(dictionaryFile, false)) {    // false for boolean append.
-        // Read project dictionary file from DropBox
-        client.getFile(DbxWorkingDir + "projectDictionary.txt", null, outputStream);
+        // Downloading Project Dictionary from DropBox, if changed.
+        try {
+            dictionaryFile = dropBoxCache.getFile(dbxPath);
         } catch(IOException | DbxException e) {
-            if (e.getCause().getClass() == UnknownHostException.class ||
-                    e.getCause().getClass() == NoRouteToHostException.class) {
+            if(isNoConnection(e)) {
                 gui.displayErrorMessage(NO_CONN_ERR_MSG);
             } else {
                 writeToErrorLog(e.toString(), e.getStackTrace());
@@ -484,64 +689,56 @@ public class AppController {
             return false;
         }
 
+        // A new project has no dictionary on DropBox until its first chapter is finished.
+        String revision = dbxPath + ":" + (dictionaryFile == null ? "none" : dropBoxCache.getRevision(dbxPath));
+        if(bookDic != null && revision.equals(bookDicRevision)) {
+            return true;
+        }
+
         // Reading in local copy of project dictionary
-        try(BufferedReader br = new BufferedReader(new FileReader(dicPath))) {
-            while((currentLine = br.readLine()) != null){
-                // Title line
-                if(isFirstLine){
-                    isFirstLine = false;
-                    continue;
-                }
-                currentLineDetails = currentLine.split(",");
-                bookDicDetails = new HashMap<>();
-                bookDicDetails.put("Added By", currentLineDetails[1]);
-                bookDicDetails.put("Last Modified", currentLineDetails[2]);
-                bookDic.put(currentLineDetails[0], bookDicDetails);
+        Map<String, Map<String, String>> importedBookDic = new HashMap<>();
+        if(dictionaryFile != null) {
+            try {
+                importedBookDic = ProjectDictionaryFile.read(dictionaryFile);
+            } catch(IOException ioe) {
+                writeToErrorLog(ioe.toString(), ioe.getStackTrace());
+                return false;
             }
-        } catch(IOException ioe) {
-            writeToErrorLog(ioe.toString(), ioe.getStackTrace());
-            return false;
         }
+
+        bookDic = importedBookDic;
+        bookDicRevision = revision;
+        spellChecker = null;    // Needs rebuilding with the new words
         return true;
     }
 
     /**
-     * Download from DropBox and read the generic dictionary file into memory.
+     * Read the generic dictionary of the project's language into memory. The setup and dictionary
+     * files are only downloaded from DropBox if they have changed since they were last downloaded,
+     * and if the dictionary is unchanged since it was last loaded in this session, it is kept.
      * @return returns whether or not the dictionary was imported without errors.
      */
     private boolean importGenericDictionary() {
-        String genDicLanguage;
-        String[] currentLineDetails;
-        String currentLine;
+        String dbxPath;
+        File setupFile;
+        File dictionaryFile;
 
         // Get the GenDic associated with the project, by downloading and then reading in the setup file.
-        File setupFile = new File(rootDir + "temp" + fileSeparator + "setup.txt");
-        // Download setup file from DropBox
         try {
-            if(!setupFile.createNewFile()) {
-                writeToErrorLog("Error in 'myFile.createNewFile()' while creating temporary project setup file." +
-                                " FilePath: " + setupFile.getAbsolutePath() +
-                                " . \nOperating System: " + System.getProperty("os.name"),
-                        Thread.currentThread().getStackTrace());
-                return false;
-            }
-        } catch(IOException ioe) {
-            writeToErrorLog(ioe.toString(), ioe.getStackTrace());
-            return false;
-        }
-
-        // Download setup file from DropBox
-        try (FileOutputStream outputStream = new FileOutputStream(setupFile)) {
-            client.getFile(DbxWorkingDir + "setup.txt", null, outputStream);
+            setupFile = dropBoxCache.getFile(DbxWorkingDir + "setup.txt");
         } catch(IOException | DbxException e) {
-            if (e.getCause().getClass() == UnknownHostException.class ||
-                    e.getCause().getClass() == NoRouteToHostException.class) {
+            if(isNoConnection(e)) {
                 gui.displayErrorMessage(NO_CONN_ERR_MSG);
             } else {
                 writeToErrorLog(e.toString(), e.getStackTrace());
             }
             return false;
         }
+        if(setupFile == null) {
+            writeToErrorLog("The project has no setup file on DropBox: " + DbxWorkingDir + "setup.txt",
+                    Thread.currentThread().getStackTrace());
+            return false;
+        }
 
         // Read in setup file.
         try(BufferedReader br = new BufferedReader(new FileReader(setupFile))){
@@ -552,72 +749,81 @@ public class AppController {
             return false;
         }
 
-        String dicPath = rootDir + "generalDictionaries" + fileSeparator + genDicLanguage +
-                fileSeparator + "Dictionary.txt";
-        genDic = new HashSet<>();
-        File dictionaryFile = new File(dicPath);
-        // Create generic dictionary file if it does not already exist
-        if(!dictionaryFile.exists()) {
-            try {
-                if(!dictionaryFile.createNewFile()) {
-                    writeToErrorLog("Error in 'myFile.createNewFile()' while creating" + genDicLanguage +
-                                    "generic dictionary file." +
-                                    " FilePath: " + dictionaryFile.getAbsolutePath() +
-                                    " . \nOperating System: " + System.getProperty("os.name"),
-                            Thread.currentThread().getStackTrace());
-                    return false;
-                }
-            } catch(IOException ioe) {
-                writeToErrorLog(ioe.toString(), ioe.getStackTrace());
-                return false;
-            }
-        }
-
-        // Downloading generic dictionary from DropBox
-        try(FileOutputStream outputStream = new FileOutputStream(dictionaryFile)) {
-            client.getFile("/generalDictionaries/" + genDicLanguage + "/Dictionary.txt", null, outputStream);
+        // Downloading generic dictionary from DropBox, if changed.
+        dbxPath = "/generalDictionaries/" + genDicLanguage + "/Dictionary.txt";
+        try {
+            dictionaryFile = dropBoxCache.getFile(dbxPath);
         } catch(IOException | DbxException e) {
-            if (e.getCause().getClass() == UnknownHostException.class ||
-                    e.getCause().getClass() == NoRouteToHostException.class) {
+            if(isNoConnection(e)) {
                 gui.displayErrorMessage(NO_CONN_ERR_MSG);
             } else {
                 writeToErrorLog(e.toString(), e.getStackTrace());
             }
             return false;
         }
+        if(dictionaryFile == null) {
+            writeToErrorLog("The generic dictionary is not on DropBox: " + dbxPath, Thread.currentThread().getStackTrace());
+            return false;
+        }
 
-        // Reading in the Generic Dictionary
-        try(BufferedReader br = new BufferedReader(new FileReader(dicPath))) {
-            while((currentLine = br.readLine()) != null){
-                if(isFirstLine){
-                    isFirstLine = false;
-                    continue;
-                }
-                currentLineDetails = currentLine.split(",");
-                genDic.add(currentLineDetails[0]);
-            }
+        String revision = dbxPath + ":" + dropBoxCache.getRevision(dbxPath);
+        if(genDic != null && revision.equals(genDicRevision)) {
+            return true;
+        }
+
+        // Compiling the downloaded Generic Dictionary, unless it is unchanged since it was last compiled,
+        // then mapping the compiled file into memory.
+        long startTime = System.nanoTime();
+        try {
+            genDic = DictionaryCompiler.load(DictionaryCompiler.getCompiledFile(dictionaryFile));
         } catch(IOException ioe){
             writeToErrorLog(ioe.toString(), ioe.getStackTrace());
             return false;
         }
+        Metrics.timer("Dictionary loading", "bytes").record(System.nanoTime() - startTime, dictionaryFile.length());
 
-        if(!setupFile.delete()) {
-            writeToErrorLog("Error in 'myFile.delete()' while deleting temporary project setup file." +
-                            " Setup FilePath: " + setupFile.getAbsolutePath() +
-                            " . \nOperating System: " + System.getProperty("os.name"),
-                    Thread.currentThread().getStackTrace());
-            return false;
-        }
+        genDicRevision = revision;
+        spellChecker = null;    // Needs rebuilding with the new words
         return true;
     }
 
     /**
-     * Covert the Word/PDF/InDesign file to a generic file with .txt extension.
+     * Start converting the Word/PDF/InDesign file to a generic file with .txt extension on a background thread.
      * @param sourceFileLocation Location of the file to be converted.
+     * @return converted Completes with whether or not the file was converted to a generic file
+     * without errors.
+     */
+    public CompletableFuture<Boolean> convertToGenericTextFile(String sourceFileLocation) {
+        if(chapterLines != null) {
+            chapterConversionProgress.cancel();  // The previously chosen chapter will not be spellchecked now
+        }
+        LineQueue lines = new LineQueue(LINE_QUEUE_CAPACITY);
+        TaskProgress conversionProgress = new TaskProgress();
+        conversionProgress.whenCancelled(lines::cancel);    // Stopping both the conversion and the spellcheck
+        chapterLines = lines;
+        chapterConversionProgress = conversionProgress;
+        chapterFileLocation = sourceFileLocation;
+        progress = conversionProgress;
+        conversion = runAfter(conversion, () -> {
+            try {
+                return convertFile(sourceFileLocation, lines, conversionProgress);
+            } finally {
+                lines.close();
+            }
+        });
+        return conversion;
+    }
+
+    /**
+     * Covert the Word/PDF/InDesign file to a generic file with .txt extension. Each line is passed on
+     * to be spellchecked as soon as it is parsed, rather than once the whole file is converted.
+     * @param sourceFileLocation Location of the file to be converted.
+     * @param lines Is given each line of the file, and stops the conversion if it is cancelled.
+     * @param conversionProgress Shows the lines parsed and spellchecked.
      * @return converted Returns whether or not the file was converted to a generic file
      * without errors.
      */
-    public synchronized boolean convertToGenericTextFile(String sourceFileLocation) {
+    private boolean convertFile(String sourceFileLocation, LineQueue lines, TaskProgress conversionProgress) {
         this.sourceFileLocation = sourceFileLocation;
         if(spellingChecks == null) {
             // Default values
@@ -640,7 +846,6 @@ public class AppController {
                 fileType = FileType.OTHER;
         }
 
-        BodyContentHandler contentHandler = new BodyContentHandler(-1); // -1 for unlimited text length
         Metadata metadata = new Metadata();
         ParseContext pContext = new ParseContext();
         //parsing the document using a parser which automatically detects the file format
@@ -662,25 +867,42 @@ public class AppController {
         }
 
         // Reading in the file.
-        try (FileInputStream inputStream = new FileInputStream(sourceFile);
+        // PDFs are read whole before any text is parsed, so the lines, not the bytes read, show how far it has got.
+        conversionProgress.startStage("Converting and spellchecking the chapter",
+                () -> lines.getLinesPut() + " lines parsed, " + lines.getLinesChecked() + " spellchecked");
+        long startTime = System.nanoTime();
+        try (InputStream inputStream = conversionProgress.track(new FileInputStream(sourceFile));
             FileWriter fStream = new FileWriter(tempProjectChapter, false);
             BufferedWriter out = new BufferedWriter(fStream)) {
-            parser.parse(inputStream, contentHandler, metadata, pContext);
-            contents = contentHandler.toString().split("\\r\\n|[\\r\\n]");  // An array element per line.
-
-            // Writing to generic temp text file
+            // Writing each line to generic temp text file as it is parsed, and passing it on.
             out.newLine();
-            for(String s : contents) {
-                out.newLine();
-                out.write(s);
+            LineSplitter lineSplitter = new LineSplitter(line -> {
+                if(lines.isCancelled()) {
+                    // Stopping the parse, which would otherwise go on to the end of the document.
+                    throw new UncheckedIOException(new InterruptedIOException("Cancelled by the user"));
+                }
+                try {
+                    out.newLine();
+                    out.write(line);
+                    lines.put(line);
+                } catch(IOException ioe) {
+                    throw new UncheckedIOException(ioe);
+                } catch(InterruptedException ie) {
+                    // Stopping the parse; a chapter with lines missing must not be spellchecked.
+                    Thread.currentThread().interrupt();
+                    throw new UncheckedIOException(new InterruptedIOException("Interrupted while passing on lines"));
+                }
+            });
+            parser.parse(inputStream, new BodyContentHandler(lineSplitter), metadata, pContext);
+            lineSplitter.finish();
+        } catch (IOException | UncheckedIOException | TikaException | SAXException e) {
+            if(!lines.isCancelled()) {
+                writeToErrorLog(e.toString(), e.getStackTrace());
             }
-        } catch (IOException | TikaException | SAXException e) {
-            writeToErrorLog(e.toString(), e.getStackTrace());
             return false;
         }
-
-        convertedFile = true;
-        this.notifyAll(); // Spellchecking can commence
+        // Includes any time spent waiting for the spellcheck to take the lines.
+        Metrics.timer("Chapter parsing", "bytes").record(System.nanoTime() - startTime, sourceFile.length());
 
         return true;
     }
@@ -701,117 +923,84 @@ public class AppController {
      */
     private boolean spellCheckFile() {
         if(genDic == null || bookDic == null){ return false; }
-        Map<String, Integer> occurrences = new HashMap<>();
-        boolean bracketsFlag = false;
-        boolean quotesFlag = false;
         isFirstLine = true;
 
-        if(spellingChecks.get("Auto remove Blanks")) {
-            for(int i = 0; i < contents.length; i ++) {
-                contents[i] = contents[i].replaceAll("[ \\t]+", " ");
-            }
-        }
-
-        for(String s : contents) {
-            String[] words = s.split(" ?((?<!\\G)((?<=[^\\p{Punct}])(?=\\p{Punct})|\\b))|\\s+ ?", 0);
-
-            for (int i = 0; i < words.length; i++) {
-                String previousWord = "";
-                if (i != 0)
-                    previousWord = words[i - 1];
-                String currentWord = words[i];
-
-                if (!occurrences.containsKey(currentWord)) {
-                    occurrences.put(currentWord, 1);
-                } else {
-                    int previousCount = occurrences.get(currentWord);
-                    occurrences.replace(currentWord, previousCount, ++previousCount);
-                }
-
-                int occurrence = occurrences.get(currentWord);
-
-                // Brackets {} [] () <>
-                if (spellingChecks.get("Brackets") && Pattern.matches("<|>|\\{|}|[|]|\\(|\\)", currentWord))
-                    bracketsFlag = !bracketsFlag;
+        // Large chapters are split into ranges of lines which are checked at the same time.
+        SpellCheckResult result = spellChecker.check(contents.toArray(), getChecks(), spellingChecks.get("Auto remove Blanks"));
+        recordSpellCheck(result);
+        contents = new ChapterText(result.getLines());
+        addToExceptionList(result);
 
-                // Quotes "
-                if (spellingChecks.get("Quotes") && Pattern.matches("\"", currentWord))
-                    quotesFlag = !quotesFlag;
-
-                // Ignore punctuation (including: '--' '."') and digits
-                if (Pattern.matches("\\p{Punct}+|\\d+|'", currentWord))
-                    continue;
-
-                // Extra blank space
-                if (currentWord.equals(" ") && spellingChecks.get("Blanks") && !spellingChecks.get("Auto remove Blanks")) {
-                    addToExceptionList(" ", ReasonCode.BLANK_SPACE, occurrence);
-                    continue;
-                }
-
-                // Duplicate word
-                if (currentWord.equals(previousWord)) {
-                    addToExceptionList(currentWord, ReasonCode.DUPLICATE, occurrence);
-                    continue;
-                }
+        return true;
+    }
 
-                // If first letter of sentence, InitCap is expected
-                String firstLetter = currentWord.substring(0, 1);
-                String capitalFirstLetter = firstLetter.toUpperCase();
-                if ((Pattern.matches("\\.|\\?|!", previousWord) || previousWord.equals(""))
-                        && !firstLetter.equals(capitalFirstLetter)) {
-                    addToExceptionList(currentWord, ReasonCode.NOT_CAPITAL, occurrence);
-                    continue;
-                }
+    /**
+     * Spellcheck a chapter as it is being converted, performing the same checks as spellCheckFile.
+     * The contents are filled in from the lines checked.
+     * @param lines The lines of the chapter, as they are parsed.
+     * @return boolean Returns whether or not the file was successfully spellchecked without errors.
+     */
+    private boolean spellCheckStream(LineQueue lines) {
+        if(genDic == null || bookDic == null){ return false; }
+        isFirstLine = true;
 
-                // Misspelled word
-                if (!genDic.contains(currentWord) && !bookDic.containsKey(currentWord)) {
-                    if (!Pattern.matches("\\.|\\?|!|\"", previousWord) &&
-                            !(genDic.contains(currentWord.toLowerCase()) ||
-                                    bookDic.containsKey(currentWord.toLowerCase()))) {
-                        addToExceptionList(currentWord, ReasonCode.NOT_IN_DICT, occurrence);
-                    }
-                }
-            }
+        SpellCheckResult result;
+        try {
+            result = spellChecker.check(lines, getChecks(), spellingChecks.get("Auto remove Blanks"));
+        } catch(InterruptedException ie) {
+            writeToErrorLog(ie.toString(), ie.getStackTrace());
+            Thread.currentThread().interrupt();
+            return false;
+        } catch(CancellationException ce) {
+            // Cancelled by the user, or a different chapter was chosen.
+            return false;
         }
-
-        if(spellingChecks.get("Brackets") && bracketsFlag)
-            addToExceptionList("", ReasonCode.BRACKETS_ODD, 0);
-
-        if(spellingChecks.get("Quotes") && quotesFlag)
-            addToExceptionList("", ReasonCode.QUOTES_ODD, 0);
+        recordSpellCheck(result);
+        contents = new ChapterText(result.getLines());
+        addToExceptionList(result);
 
         return true;
     }
 
     /**
-     * Add an entry to the Exceptions List.
-     * @param misspelledWord A word which was not found in either the General Dictionary or
-     *                      the Project Dictionary.
-     * @param reasonCode The reason why the word is flagged as incorrect.
-     * @param occurrence The occurrence of the misspelled word in that paragraph.
+     * Record how long a chapter took to spellcheck, and what was found, in the session's metrics. The time
+     * is that spent checking, added up over the threads, so a chapter checked as it is parsed is not timed
+     * waiting for the parser, and the words per second are those of one thread.
+     * @param result What the spellcheck found.
      */
-    private void addToExceptionList(String misspelledWord, ReasonCode reasonCode, int occurrence){
-        Map<String, String> exceptionDetails = new TreeMap<>();
-
-        String date = new SimpleDateFormat("dd/MM/yyyy HH:mm:ss").format(new Date());
-
-        if(isFirstLine){
-            exceptionsList = new TreeMap<>();
-            lastExceptionsChanged = new TreeMap<>();
-            isFirstLine = false;
-        }
+    private void recordSpellCheck(SpellCheckResult result) {
+        Metrics.timer("Spellchecking", "words").record(result.getCheckNanos(), result.getWordCount());
+        Metrics.counter("Chapters checked").add(1);
+        Metrics.counter("Words flagged").add(result.getFlaggedWords().size());
+    }
 
-        exceptionDetails.put("Incorrect Word", misspelledWord);
-        exceptionDetails.put("Reason", reasonCode.getText());
-        exceptionDetails.put("Occurrence", "" + occurrence);
-        exceptionDetails.put("Created Date", date);
-        exceptionDetails.put("Created By", userName);
-        exceptionDetails.put("Status", Status.NOT_REVIEWED.getText());
-        exceptionDetails.put("Replacement", " ");
-        exceptionDetails.put("Replacement Authorised By", " ");
-        exceptionDetails.put("Last Modified", date);
+    /**
+     * Returns the checks switched on in the spelling checks, as the reason codes of the exceptions they give.
+     * Duplicate words, capitals and dictionary words are always checked.
+     * @return the checks to perform.
+     */
+    private Set<ReasonCode> getChecks() {
+        Set<ReasonCode> checks = EnumSet.of(ReasonCode.DUPLICATE, ReasonCode.NOT_CAPITAL, ReasonCode.NOT_IN_DICT);
+        if(spellingChecks.get("Brackets"))
+            checks.add(ReasonCode.BRACKETS_ODD);
+        if(spellingChecks.get("Quotes"))
+            checks.add(ReasonCode.QUOTES_ODD);
+        if(spellingChecks.get("Blanks"))
+            checks.add(ReasonCode.BLANK_SPACE);
+        return checks;
+    }
 
-        exceptionsList.put(nextEntryNo++, exceptionDetails);
+    /**
+     * Add everything found by the spellcheck to the Exceptions List.
+     * @param result The words flagged by the spellcheck, and which paired marks are odd.
+     */
+    private void addToExceptionList(SpellCheckResult result) {
+        exceptionsList = new ExceptionList();
+        undoHistory.clear();
+        redoHistory.clear();
+        queuedCorrections.clear();
+        changesQueued = false;
+        exceptionsList.addAll(result, userName, System.currentTimeMillis());
     }
 
     /**
@@ -824,6 +1013,15 @@ public class AppController {
         return projectItems.toArray(new String[projectItems.size()]);
     }
 
+    /**
+     * Whether an exception thrown while talking to DropBox was caused by there being no connection.
+     * @param e The exception.
+     * @return true if DropBox could not be reached.
+     */
+    private static boolean isNoConnection(Exception e) {
+        return e.getCause() instanceof UnknownHostException || e.getCause() instanceof NoRouteToHostException;
+    }
+
     /**
      * Write any errors that occur during execution of the program for future debugging.
      * @param errorMessage Text representation of the error which occurred.
@@ -868,8 +1066,7 @@ public class AppController {
             out.newLine();
             out.newLine();
         } catch (IOException | DbxException e) {
-            if(e.getCause().getClass() == UnknownHostException.class ||
-                    e.getCause().getClass() == NoRouteToHostException.class) {
+            if(isNoConnection(e)) {
                 gui.displayErrorMessage(NO_CONN_ERR_MSG);
             } else {
                 gui.displayErrorMessage("Fatal Error WTEL003 - Writing to the error log failed. " +
@@ -896,6 +1093,65 @@ public class AppController {
      * @return Whether or not the word was successfully replaced in the source file.
      */
     public boolean applyChangeToException(String correctWord, Status status) {
+        return queueChangeToException(correctWord, status) && applyQueuedChanges();
+    }
+
+    /**
+     * Apply the corrections of many exceptions at once. The contents are corrected in one pass whatever the
+     * number of corrections, and the corrections are undone together.
+     * @param corrections The words to substitute, by exception no.
+     * @param status The status the exceptions are given.
+     * @return Whether or not every correction could be made.
+     */
+    public boolean applyChangesToExceptions(Map<Integer, String> corrections, Status status) {
+        int currentEntryNo = nextEntryNo;
+        boolean allMade = true;
+        for(Map.Entry<Integer, String> correction : corrections.entrySet()) {
+            nextEntryNo = correction.getKey();
+            if(nextEntryNo < 0 || nextEntryNo >= exceptionsList.size()) {
+                allMade = false;
+                continue;
+            }
+            // Skipping those already given the correction along with a similar exception.
+            if(exceptionsList.getStatus(nextEntryNo) != status ||
+                    !exceptionsList.getWord(nextEntryNo).equals(correction.getValue())) {
+                allMade &= queueChangeToException(correction.getValue(), status);
+            }
+        }
+        nextEntryNo = currentEntryNo;
+        return applyQueuedChanges() && allMade;
+    }
+
+    /**
+     * Returns the exceptions of a type which have not been reviewed yet.
+     * @param reason The type of the exceptions.
+     * @return the words of the exceptions, by exception no. in order.
+     */
+    public Map<Integer, String> getNotReviewedExceptions(ReasonCode reason) {
+        Map<Integer, String> notReviewed = new LinkedHashMap<>();
+        for(int entryNo = exceptionsList.nextNotReviewed(0); entryNo >= 0;
+                entryNo = exceptionsList.nextNotReviewed(entryNo + 1)) {
+            if(exceptionsList.getReason(entryNo) == reason) {
+                notReviewed.put(entryNo, exceptionsList.getWord(entryNo));
+            }
+        }
+        return notReviewed;
+    }
+
+    /**
+     * Apply a correction (delete, corrected spelling, added to project dictionary) to the exception
+     * list, leaving the contents to be corrected with the other queued corrections by applyQueuedChanges.
+     * Queuing the corrections of many exceptions and applying them at once goes through the contents
+     * only once, and they are undone together.
+     * @param correctWord The word to be substituted.
+     * @param status The status the exception is given.
+     * @return Whether or not the correction could be made.
+     */
+    private boolean queueChangeToException(String correctWord, Status status) {
+        if(nextEntryNo < 0 || nextEntryNo >= exceptionsList.size()) {
+            return false;
+        }
+
         // Add to project dictionary
         if(status == Status.ADDED_PROJ_DIC) {
             if (bookDic.containsKey(correctWord)) {
@@ -908,66 +1164,353 @@ public class AppController {
                     new SimpleDateFormat("dd/MM/yyyy HH:mm:ss").format(new Date()));
 
             bookDic.put(correctWord, projectDicEntryDetails);
+            spellChecker.addProjectWord(correctWord);
+            bookDicRevision = null;     // No longer matches DropBox until it is uploaded
+        }
+
+        // Starting a revision at the first queued change, which the queued changes are undone with.
+        if(!changesQueued) {
+            undoHistory.push(new Revision(contents));
+            redoHistory.clear();
+            changesQueued = true;
         }
 
         // Apply change to every other exception of the same type.
-        String currentWord = exceptionsList.get(nextEntryNo).get("Incorrect Word");
-        String exceptionReason = exceptionsList.get(nextEntryNo).get("Reason");
-
-        for(int i = 0; i < exceptionsList.size(); i++) {
-            Map<String, String> details = exceptionsList.get(i);
-            if(details.get("Incorrect Word").equals(currentWord) &&
-                    details.get("Reason").equals(exceptionReason)) {
-                // Saving the original entry, in case of an undo.
-                lastExceptionsChanged.put(i, details);
-                // Finding similar occurrences
-                details.put("Incorrect Word", correctWord);
-                details.put("Status", status.getText());
-            }
+        String currentWord = exceptionsList.getWord(nextEntryNo);
+        ReasonCode exceptionReason = exceptionsList.getReason(nextEntryNo);
+        undoHistory.peek().exceptionChanges.add(exceptionsList.changeSimilar(nextEntryNo, correctWord, status));
+
+        // Exceptions without a word, such as a blank line reported as a duplicate, leave the text as it is.
+        if (exceptionReason == ReasonCode.BLANK_SPACE) {
+            queuedCorrections.removeExtraBlanks();
+        } else if (currentWord.trim().isEmpty()) {
+            return true;
+        } else if (exceptionReason == ReasonCode.DUPLICATE) {
+            queuedCorrections.add(currentWord + " " + currentWord, currentWord);
+        } else {
+            // Replaced with a blank, the word is deleted.
+            queuedCorrections.add(currentWord, correctWord);
         }
+        return true;
+    }
 
-        previousContentsForUndo = contents;
+    /**
+     * Correct the contents with every queued correction, in one pass, and spellcheck the changed lines again.
+     * @return Whether or not the contents could be corrected.
+     */
+    private boolean applyQueuedChanges() {
+        lastChangedLines = new int[0];
+        changesQueued = false;
+        if(queuedCorrections.isEmpty()) {
+            return true;
+        }
 
-        // Update contents
-        for(int i = 0; i < contents.length; i++) {
-            if (exceptionReason.equals(ReasonCode.BLANK_SPACE.getText())) {
-                contents[i] = contents[i].replaceAll("[ \\t]+", " ");
-            } else if (exceptionReason.equals(ReasonCode.DUPLICATE.getText())) {
-                contents[i] = contents[i].replaceAll("\\s" + currentWord + "\\s" + currentWord + "\\s", " " + currentWord + " ");
-            } else if (!correctWord.equals("")) {
-                // replace word
-                contents[i] = contents[i].replaceAll("\\s" + currentWord + "\\s", " " + correctWord + " ");
-            } else {
-                // delete word
-                contents[i] = contents[i].replaceAll("\\s" + currentWord + "\\s", " ");
+        // Correct the contents, keeping track of the lines changed.
+        List<Integer> changedLines = new ArrayList<>();
+        List<String> correctedLines = new ArrayList<>();
+        for(int i = 0; i < contents.getLineCount(); i++) {
+            String line = queuedCorrections.apply(contents.getLine(i));
+            if (!line.equals(contents.getLine(i))) {
+                changedLines.add(i);
+                correctedLines.add(line);
             }
         }
+        queuedCorrections.clear();
 
+        if(!changedLines.isEmpty()) {
+            reCheckLines(changedLines, correctedLines.toArray(new String[correctedLines.size()]));
+        }
         return true;
     }
 
     /**
-     * Undo the last change made by overwriting the new changed entries with the original entries.
+     * Spellcheck the lines changed by a correction again, so problems the correction brought in are
+     * found, and splice what is found into the Exceptions List in place of the old exceptions of those
+     * lines. Every check only looks at one line at a time, so only the changed lines need checking, and
+     * only their exceptions are replaced. Exceptions which have been reviewed are kept, as a record of
+     * what was done, with their place in the line updated.
+     *
+     * The occurrences of newly found words are counted within the changed lines only.
+     * @param changedLines The line numbers of the changed lines, in order.
+     * @param newLines The changed lines.
+     */
+    private void reCheckLines(List<Integer> changedLines, String[] newLines) {
+        int[] lineNos = new int[changedLines.size()];
+        String[] oldLines = new String[changedLines.size()];
+        for(int i = 0; i < lineNos.length; i++) {
+            lineNos[i] = changedLines.get(i);
+            oldLines[i] = contents.getLine(lineNos[i]);
+        }
+
+        Set<ReasonCode> checks = getChecks();
+        SpellCheckResult result = spellChecker.check(newLines, checks, spellingChecks.get("Auto remove Blanks"));
+        ChapterText uncorrectedContents = contents;
+        contents = contents.withLines(lineNos, result.getLines());
+        lastChangedLines = contents.getChangedLines(uncorrectedContents);
+
+        // Brackets and quotes are counted over the whole chapter, so the changed lines' marks are swapped
+        // for the old ones: an odd number in only one of the two flips whether the chapter's are odd.
+        Set<ReasonCode> pairChecks = EnumSet.noneOf(ReasonCode.class);
+        for(ReasonCode reason : EnumSet.of(ReasonCode.BRACKETS_ODD, ReasonCode.QUOTES_ODD)) {
+            if(checks.contains(reason))
+                pairChecks.add(reason);
+        }
+        Set<ReasonCode> flippedPairs = EnumSet.noneOf(ReasonCode.class);
+        if(!pairChecks.isEmpty()) {
+            Set<ReasonCode> oldPairs = spellChecker.check(oldLines, pairChecks, false).getOddPairs();
+            for(ReasonCode reason : pairChecks) {
+                if(oldPairs.contains(reason) != result.getOddPairs().contains(reason))
+                    flippedPairs.add(reason);
+            }
+        }
+
+        long date = System.currentTimeMillis();
+
+        // Each changed line's exceptions are replaced with those found in it now, keeping the ones which have
+        // been reviewed, as a record of what was done, moved to where their word is in the corrected line.
+        List<FlaggedWord> newExceptions = result.getFlaggedWords();
+        int next = 0;
+        for(int i = 0; i < lineNos.length; i++) {
+            int from = exceptionsList.firstOnLine(lineNos[i]);
+            int to = exceptionsList.firstOnLine(lineNos[i] + 1);
+            ExceptionList lineExceptions = new ExceptionList();
+            int current = -1;
+            for(int id = from; id < to; id++) {
+                if(exceptionsList.getStatus(id) == Status.NOT_REVIEWED)
+                    continue;
+                String word = exceptionsList.getWord(id);
+                int start = relocate(oldLines[i], result.getLines()[i], word, exceptionsList.getStart(id));
+                for(; next < newExceptions.size() && newExceptions.get(next).getLine() == i &&
+                        newExceptions.get(next).getStart() < start; next++) {
+                    addToList(lineExceptions, newExceptions.get(next), lineNos[i], date);
+                }
+                if(id == nextEntryNo)
+                    current = lineExceptions.size();
+                lineExceptions.setPosition(lineExceptions.addCopy(exceptionsList, id), start, start + word.length());
+            }
+            for(; next < newExceptions.size() && newExceptions.get(next).getLine() == i; next++) {
+                addToList(lineExceptions, newExceptions.get(next), lineNos[i], date);
+            }
+            spliceExceptions(from, to, lineExceptions, current);
+        }
+
+        // Brackets or quotes which are no longer odd lose their unreviewed exception, those which have become
+        // odd get a new one unless they already have one.
+        if(!flippedPairs.isEmpty()) {
+            int from = exceptionsList.firstOnLine(Integer.MAX_VALUE);
+            ExceptionList pairExceptions = new ExceptionList();
+            Set<ReasonCode> newOddPairs = EnumSet.copyOf(flippedPairs);
+            int current = -1;
+            for(int id = from; id < exceptionsList.size(); id++) {
+                ReasonCode reason = exceptionsList.getReason(id);
+                newOddPairs.remove(reason);
+                if(exceptionsList.getStatus(id) == Status.NOT_REVIEWED && flippedPairs.contains(reason))
+                    continue;
+                if(id == nextEntryNo)
+                    current = pairExceptions.size();
+                pairExceptions.addCopy(exceptionsList, id);
+            }
+            for(ReasonCode reason : newOddPairs) {
+                pairExceptions.add("", reason, 0, -1, 0, 0, userName, date);
+            }
+            spliceExceptions(from, exceptionsList.size(), pairExceptions, current);
+        }
+        nextEntryNo = Math.max(0, Math.min(nextEntryNo, exceptionsList.size() - 1));     // 0 if none are left
+    }
+
+    /**
+     * Replace a range of the Exceptions List, keeping the exception being processed the current one.
+     * @param from The entry no. of the first exception to replace.
+     * @param to The entry no. after the last exception to replace.
+     * @param replacement The exceptions to put in their place.
+     * @param current Where the exception being processed is in the replacement, or -1 if it is not.
+     */
+    private void spliceExceptions(int from, int to, ExceptionList replacement, int current) {
+        undoHistory.peek().exceptionChanges.add(exceptionsList.splice(from, to, replacement));
+        if(nextEntryNo >= to) {
+            nextEntryNo += replacement.size() - (to - from);
+        } else if(nextEntryNo >= from) {
+            // Dropped from the list, the next exception takes its place.
+            nextEntryNo = current >= 0 ? from + current : from;
+        }
+    }
+
+    private void addToList(ExceptionList list, FlaggedWord flaggedWord, int lineNo, long date) {
+        list.add(flaggedWord.getWord(), flaggedWord.getReason(), flaggedWord.getOccurrence(),
+                lineNo, flaggedWord.getStart(), flaggedWord.getEnd(), userName, date);
+    }
+
+    /**
+     * Returns where a word is in a line after the line was corrected. Where the word was is moved along
+     * by the change in length of the corrections before it, then the word is looked for nearest there.
+     * @param oldLine The line before it was corrected.
+     * @param newLine The corrected line.
+     * @param word The word.
+     * @param start Where the word was in the line before it was corrected.
+     * @return where the word is now, or where it would be if it is no longer in the line.
+     */
+    private static int relocate(String oldLine, String newLine, String word, int start) {
+        int prefix = 0;
+        int limit = Math.min(oldLine.length(), newLine.length());
+        while(prefix < limit && oldLine.charAt(prefix) == newLine.charAt(prefix)) {
+            prefix++;
+        }
+        int suffix = 0;
+        while(suffix < limit - prefix &&
+                oldLine.charAt(oldLine.length() - 1 - suffix) == newLine.charAt(newLine.length() - 1 - suffix)) {
+            suffix++;
+        }
+        int moved;
+        if(start < prefix) {
+            moved = start;
+        } else if(start >= oldLine.length() - suffix) {
+            moved = start + newLine.length() - oldLine.length();
+        } else {
+            moved = Math.min(start, newLine.length() - suffix);
+        }
+        int nearest = nearest(newLine, word, moved);
+        return nearest < 0 ? moved : nearest;
+    }
+
+    /**
+     * Returns where a word is in a line nearest a place in it.
+     * @param line The line.
+     * @param word The word.
+     * @param start The place.
+     * @return where the nearest occurrence of the word starts, or -1 if the word is not in the line.
+     */
+    private static int nearest(String line, String word, int start) {
+        if(word.isEmpty()) {
+            return -1;
+        }
+        int closest = -1;
+        for(int i = line.indexOf(word); i >= 0; i = line.indexOf(word, i + 1)) {
+            if(closest < 0 || Math.abs(i - start) < Math.abs(closest - start)) {
+                closest = i;
+            }
+        }
+        return closest;
+    }
+
+    /**
+     * Undo the last change made, going back to the contents and exceptions as they were before it.
+     * Changes can be undone one after the other back to the start of the chapter.
      */
     public void unApplyLastChange() {
-        exceptionsList.putAll(lastExceptionsChanged);
-        contents = previousContentsForUndo;
+        // Queued corrections had not reached the contents yet.
+        queuedCorrections.clear();
+        changesQueued = false;
+        lastChangedLines = new int[0];
+        moveThroughHistory(undoHistory, redoHistory);
+    }
+
+    /**
+     * Redo the last change undone.
+     */
+    public void reApplyLastChange() {
+        lastChangedLines = new int[0];
+        moveThroughHistory(redoHistory, undoHistory);
+    }
+
+    /**
+     * Whether there is a change to undo.
+     * @return true if unApplyLastChange would undo a change.
+     */
+    public boolean canUndo() {
+        return !undoHistory.isEmpty();
+    }
+
+    /**
+     * Whether there is an undone change to redo.
+     * @return true if reApplyLastChange would redo a change.
+     */
+    public boolean canRedo() {
+        return !redoHistory.isEmpty();
+    }
+
+    /**
+     * Go back to the last revision of one history, saving the current contents and exceptions in the other.
+     */
+    private void moveThroughHistory(Deque<Revision> from, Deque<Revision> to) {
+        if(from.isEmpty()) {
+            return;
+        }
+        Revision revision = from.pop();
+        boolean onException = nextEntryNo >= 0 && nextEntryNo < exceptionsList.size();
+        int line = onException ? exceptionsList.getLine(nextEntryNo) : -1;
+        int start = onException ? exceptionsList.getStart(nextEntryNo) : 0;
+        ReasonCode reason = onException ? exceptionsList.getReason(nextEntryNo) : null;
+
+        // Undone the last made first, each giving the change which redoes it. Those are kept in the order
+        // they were made, so they are also made the last first.
+        Revision reverse = new Revision(contents);
+        for(int i = revision.exceptionChanges.size() - 1; i >= 0; i--) {
+            reverse.exceptionChanges.add(revision.exceptionChanges.get(i).makeTo(exceptionsList));
+        }
+        to.push(reverse);
+
+        // Staying on the same exception, if it is in the revision.
+        int entryNo = onException ? exceptionsList.find(line, start, reason) : -1;
+        if(entryNo >= 0) {
+            nextEntryNo = entryNo;
+        }
+        lastChangedLines = revision.contents.getChangedLines(contents);
+        contents = revision.contents;
+        nextEntryNo = Math.max(0, Math.min(nextEntryNo, exceptionsList.size() - 1));     // 0 if none are left
+    }
+
+    /**
+     * Number of lines in the contents of the project file being processed.
+     * @return line count.
+     */
+    public int getLineCount() {
+        return contents.getLineCount();
+    }
+
+    /**
+     * Return one line of the contents of the project file being processed, so the GUI only needs to
+     * ask for the lines it shows.
+     * @param lineNo The line number, zero based.
+     * @return the line.
+     */
+    public String getLine(int lineNo) {
+        return contents.getLine(lineNo);
+    }
+
+    /**
+     * Returns the lines changed by the last change, undo or redo, so only those need to be shown again.
+     * @return the line numbers, in order.
+     */
+    public int[] getChangedLines() {
+        return lastChangedLines.clone();
     }
 
     /**
-     * Return the contents of the project file being processed. To be displayed in the TextArea on the GUI.
-     * @return string - the contents of the project file.
+     * Returns where the word of the current exception is in the contents, from the line and offsets
+     * recorded when the file was spellchecked. If a change has since moved the word along its line,
+     * the closest match on the same line is used.
+     * @return the line of the word and where it starts and ends in the line, or null if the exception
+     * has no position or the word is gone.
      */
-    public String getContents() {
-        StringBuilder concatContentsString = new StringBuilder();
-        int noOfParagraphs = contents.length;
-        for(int i = 0; i < noOfParagraphs; i++) {
-            concatContentsString.append(contents[i]);
-            if(i + 1 != noOfParagraphs) {
-                concatContentsString.append("\n");
+    public int[] getHighlightRange() {
+        if(nextEntryNo < 0 || nextEntryNo >= exceptionsList.size() || exceptionsList.getLine(nextEntryNo) < 0) {
+            return null;
+        }
+        int lineNo = exceptionsList.getLine(nextEntryNo);
+        if(lineNo >= contents.getLineCount()) {
+            return null;
+        }
+
+        String line = contents.getLine(lineNo);
+        String word = exceptionsList.getWord(nextEntryNo);
+        int start = exceptionsList.getStart(nextEntryNo);
+        if(!line.startsWith(word, start)) {
+            start = nearest(line, word, start);
+            if(start < 0) {
+                return null;
             }
         }
-        return concatContentsString.toString();
+        return new int[] {lineNo, start, start + word.length()};
     }
 
     /**
@@ -983,6 +1526,9 @@ public class AppController {
      * @return current error no.
      */
     public String getCurrentErrorNo() {
+        if(exceptionsList.size() == 0) {
+            return "0";
+        }
         return "" + (nextEntryNo + 1);        // The nextEntryNo var is zero based by default
     }
 
@@ -991,18 +1537,10 @@ public class AppController {
      * @return number of occurrences of the incorrect word.
      */
     public String getSimilarErrorCount() {
-        Collection<Map<String, String>> allExceptionDetails = exceptionsList.values();
-        String currentWord = exceptionsList.get(nextEntryNo).get("Incorrect Word");
-        String currentErrorDesc = exceptionsList.get(nextEntryNo).get("Reason");
-        int count = 0;
-
-        for(Map<String, String> details : allExceptionDetails) {
-            if(details.get("Incorrect Word").equals(currentWord) &&
-                    details.get("Reason").equals(currentErrorDesc)) {
-                count ++;
-            }
+        if(nextEntryNo < 0 || nextEntryNo >= exceptionsList.size()) {
+            return "0";
         }
-        return ""  + count;
+        return "" + exceptionsList.getSimilarCount(nextEntryNo);
     }
 
     /**
@@ -1015,27 +1553,90 @@ public class AppController {
     /**
      * Return the next/previous exception to be processed.
      * @param next - whether to return the next exception or the previous.
-     * @return a map which contains the details of the exception.
+     * @return a map which contains the details of the exception, or null if there are no exceptions left.
      */
     public Map<String, String> getExceptionDetails(boolean next) {
+        if(exceptionsList.size() == 0) {
+            nextEntryNo = 0;
+            return null;
+        }
+        int entryNo;
         if(next) {
-            nextEntryNo++;
+            entryNo = nextEntryNo + 1;
             if(isFirstLine) {
                 isFirstLine = false;
-                nextEntryNo = 0;
+                entryNo = 0;
             }
         } else {
-            nextEntryNo--;
-            if(nextEntryNo < 0) {
-                nextEntryNo = 0;
+            entryNo = Math.max(nextEntryNo - 1, 0);
+        }
+
+        if(viewOnlyNotReviewedException) {
+            int notReviewedEntryNo = next ? exceptionsList.nextNotReviewed(entryNo) :
+                    exceptionsList.previousNotReviewed(entryNo);
+            if(notReviewedEntryNo >= 0) {
+                entryNo = notReviewedEntryNo;
+            } else if(next) {
+                // Everything after has been reviewed, go to the last exception so the chapter can be finished.
+                entryNo = exceptionsList.size() - 1;
+            } else {
+                // Everything before has been reviewed, stay on the current exception.
+                entryNo = nextEntryNo;
             }
         }
+        nextEntryNo = Math.min(entryNo, exceptionsList.size() - 1);
+        return exceptionsList.getDetails(nextEntryNo);
+    }
 
-        if(viewOnlyNotReviewedException && !exceptionsList.get(nextEntryNo).get("Status").equals(Status.NOT_REVIEWED.getText())) {
-            return getExceptionDetails(next);
-        } else {
-            return exceptionsList.get(nextEntryNo);
+    /**
+     * Returns how often the dictionary filter answered lookups on its own, and how often it was wrong.
+     * @return the filter statistics as text.
+     */
+    public String getDictionaryFilterStatistics() {
+        return spellChecker == null ? "" : spellChecker.getDictionaryStatistics();
+    }
+
+    /**
+     * Returns how many exceptions each rule found in the last chapter checked, and the time spent in each.
+     * @return the rule statistics as text.
+     */
+    public String getRuleStatistics() {
+        return spellChecker == null ? "" : spellChecker.getRuleStatistics();
+    }
+
+    /**
+     * Start finding suggested corrections for the current exception, if it is a word not found in the
+     * dictionaries, on a background thread. Suggestions still being found for the previous exception are
+     * no longer wanted and are cancelled.
+     * @return completes with the suggestions, best first. Empty if there are none, or the suggestion index
+     * is still being built.
+     */
+    public CompletableFuture<List<String>> getSuggestions() {
+        if(pendingSuggestions != null) {
+            pendingSuggestions.cancel(false);
+        }
+        Suggester currentSuggester = suggester == null ? null : suggester.getNow(null);
+        if(currentSuggester == null || exceptionsList == null || nextEntryNo < 0 || nextEntryNo >= exceptionsList.size() ||
+                exceptionsList.getReason(nextEntryNo) != ReasonCode.NOT_IN_DICT) {
+            return CompletableFuture.completedFuture(Collections.emptyList());
         }
+        String word = exceptionsList.getWord(nextEntryNo);
+        pendingSuggestions = CompletableFuture.supplyAsync(() -> currentSuggester.suggest(word, MAX_SUGGESTIONS),
+                backgroundTasks);
+        return pendingSuggestions;
+    }
+
+    /**
+     * Returns how long the suggestion index took to build and how much memory it uses.
+     * @return the suggestion index statistics as text.
+     */
+    public String getSuggestionIndexStatistics() {
+        Suggester currentSuggester = suggester == null ? null : suggester.getNow(null);
+        if(currentSuggester == null) {
+            return "";
+        }
+        return "Suggestion index built in " + currentSuggester.getBuildTime() + "ms, using " +
+                currentSuggester.getMemoryFootprint() / 1024 + "KB";
     }
 
     /**
@@ -1053,10 +1654,12 @@ public class AppController {
      * @return successfully saved all files.
      */
     public boolean finishProcessing() {
+        TaskProgress finishProgress = progress;
         // Upload original chapter file for historical reference.
         String tempFilesPath = rootDir + "temp" + fileSeparator + "tempChapter.txt";
+        finishProgress.startStage("Uploading the chapter", new File(tempFilesPath).length());
         // Write this original temp file to DropBox for historical analysis
-        try(FileInputStream fileInputStream = new FileInputStream(tempFilesPath)) {
+        try(InputStream fileInputStream = finishProgress.track(new FileInputStream(tempFilesPath))) {
             // Upload chapter to DropBox
             if(newChapter) {
                 // Create folder per chapter
@@ -1064,12 +1667,13 @@ public class AppController {
             }
 
             // Filename is the date - for historical analysis each chapter is written to its chapter name folder.
+            long startTime = System.nanoTime();
             client.uploadFile(DbxWorkingDir + "Chapters/" + chapterName + "/" +
                     new SimpleDateFormat("ddMMMyyyy HH:mm:ss").format(new Date()) + ".txt", DbxWriteMode.add(),
                     new File(tempFilesPath).length(), fileInputStream);
+            Metrics.timer("DropBox uploads", "bytes").record(System.nanoTime() - startTime, new File(tempFilesPath).length());
         } catch(IOException | DbxException e) {
-            if(e.getCause().getClass() == UnknownHostException.class ||
-                    e.getCause().getClass() == NoRouteToHostException.class) {
+            if(isNoConnection(e)) {
                 gui.displayErrorMessage(NO_CONN_ERR_MSG);
             }
             writeToErrorLog(e.toString(), e.getStackTrace());
@@ -1086,6 +1690,7 @@ public class AppController {
         }
 
         // Write changes back to original file.
+        finishProgress.startStage("Saving the changes", -1);
         writeChangesToOriginalFile();
 
         // Finalising exceptions and writing remaining ones to a file, which the user can print.
@@ -1105,25 +1710,9 @@ public class AppController {
             return false;
         }
 
-        // Write exceptions to temp file.
-        try(FileWriter fStream = new FileWriter(tempFilesPath);
-            BufferedWriter out = new BufferedWriter(fStream)) {
-            out.write(projectName + ", " + chapterName + ", Created: " + userName + ", " +
-                    new SimpleDateFormat("dd MMM yyyy HH:mm:ss").format(new Date()));
-            out.newLine();
-            out.write("Incorrect Word, Reason Code, Occurrences");
-            out.newLine();
-            // Looping through exceptions, only writing those which have not yet been reviewed.
-            for(int i = 0; i < exceptionsList.size(); i++) {
-                Map<String, String> details = exceptionsList.get(i);
-                if(details.get("Status").equals(Status.NOT_REVIEWED.getText())) {
-                    // Need this in the call to getSimilarErrorCount
-                    nextEntryNo = i;
-                    out.write(details.get("Incorrect Word") + ", " + details.get("Reason") + ", "
-                            + getSimilarErrorCount());
-                    out.newLine();
-                }
-            }
+        // Write exceptions not yet reviewed to temp file.
+        try {
+            ExceptionsReport.write(tempFile, projectName, chapterName, userName, exceptionsList);
         } catch(IOException ioe){
             writeToErrorLog(ioe.toString(), ioe.getStackTrace());
             return false;
@@ -1149,29 +1738,26 @@ public class AppController {
 
         // Writing changes to project Dictionary.
         tempFilesPath = rootDir + "temp" + fileSeparator + "projectDic.txt";
-        try(FileWriter fStream = new FileWriter(tempFilesPath);
-            BufferedWriter out = new BufferedWriter(fStream)) {
-            out.write("Correct Word, Added By, Added At");
-            out.newLine();
-            // Looping through ProjectDic object writing words to projectDic file.
-            for(String key : bookDic.keySet()) {
-                Map<String, String> details = bookDic.get(key);
-                out.write(key + ", " + details.get("Added By") + ", " + details.get("Last Modified"));
-                out.newLine();
-            }
+        try {
+            ProjectDictionaryFile.write(new File(tempFilesPath), bookDic);
         } catch(IOException ioe){
             writeToErrorLog(ioe.toString(), ioe.getStackTrace());
             return false;
         }
 
         // Upload project dictionary file to dropBox.
-        try(FileInputStream fileInputStream = new FileInputStream(tempFilesPath)) {
+        finishProgress.startStage("Uploading the project dictionary", new File(tempFilesPath).length());
+        try(InputStream fileInputStream = finishProgress.track(new FileInputStream(tempFilesPath))) {
             // Upload project Dictionary to DropBox
-            client.uploadFile(DbxWorkingDir + "projectDictionary.txt", DbxWriteMode.force(),        // Test
+            long startTime = System.nanoTime();
+            DbxEntry.File uploaded = client.uploadFile(DbxWorkingDir + "projectDictionary.txt", DbxWriteMode.force(),        // Test
                     new File(tempFilesPath).length(), fileInputStream);
+            Metrics.timer("DropBox uploads", "bytes").record(System.nanoTime() - startTime, new File(tempFilesPath).length());
+            // Keeping the uploaded file as the local copy, so the next chapter does not download it again.
+            dropBoxCache.recordUpload(DbxWorkingDir + "projectDictionary.txt", uploaded, new File(tempFilesPath));
+            bookDicRevision = DbxWorkingDir + "projectDictionary.txt:" + uploaded.rev;
         } catch(IOException | DbxException e) {
-            if(e.getCause().getClass() == UnknownHostException.class ||
-                    e.getCause().getClass() == NoRouteToHostException.class) {
+            if(isNoConnection(e)) {
                 gui.displayErrorMessage(NO_CONN_ERR_MSG);
             }
             writeToErrorLog(e.toString(), e.getStackTrace());
@@ -1190,13 +1776,15 @@ public class AppController {
         // Uploading errorLog if one exist.
         tempFilesPath = rootDir + "temp" + fileSeparator + "error_log.txt";
         if(new File(tempFilesPath).exists()) {
-            try(FileInputStream fileInputStream = new FileInputStream(tempFilesPath)) {
+            finishProgress.startStage("Uploading the error log", new File(tempFilesPath).length());
+            try(InputStream fileInputStream = finishProgress.track(new FileInputStream(tempFilesPath))) {
                 // Upload errorLog to DropBox
+                long startTime = System.nanoTime();
                 client.uploadFile(DbxWorkingDir + "errorLogs/error_log_" + new SimpleDateFormat("ddMMMyyyy") + ".txt",
                         DbxWriteMode.add(), new File(tempFilesPath).length(), fileInputStream);
+                Metrics.timer("DropBox uploads", "bytes").record(System.nanoTime() - startTime, new File(tempFilesPath).length());
             } catch(IOException | DbxException e) {
-                if(e.getCause().getClass() == UnknownHostException.class ||
-                        e.getCause().getClass() == NoRouteToHostException.class) {
+                if(isNoConnection(e)) {
                     gui.displayErrorMessage(NO_CONN_ERR_MSG);
                 }
                 writeToErrorLog(e.toString(), e.getStackTrace());
@@ -1252,7 +1840,7 @@ public class AppController {
             PDPageContentStream content = new PDPageContentStream(doc, page);
 
             content.beginText();
-            for(String s : contents) {
+            for(String s : contents.toArray()) {
                 content.showText(s);
                 content.newLine();
                 content.endText();
@@ -1276,10 +1864,10 @@ public class AppController {
         XWPFParagraph paragraph = document.createParagraph();
         XWPFRun run = paragraph.createRun();
 
-        int maxParagraphs = contents.length;
+        int maxParagraphs = contents.getLineCount();
 
         for(int i = 0; i < maxParagraphs; i++) {
-            run.setText(contents[i]);
+            run.setText(contents.getLine(i));
             if((i + 1) != maxParagraphs) {
                 run.addBreak();
             }
@@ -0,0 +1,269 @@
+package controllers;
+
+import com.dropbox.core.*;
+import models.Dictionary;
+import models.DictionaryCompiler;
+import models.LineSplitter;
+import models.SpellCheckResult;
+import models.SpellChecker;
+
+import org.apache.tika.exception.TikaException;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.parser.AutoDetectParser;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.sax.BodyContentHandler;
+import org.xml.sax.SAXException;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * @author agent
+ * Created on 17/10/2026
+ *
+ * Spellchecks every chapter of a project, or every file in a folder, without the user interface,
+ * e.g. for an overnight run. The chapters are converted and checked at the same time on a pool of
+ * a fixed number of threads, all sharing the same dictionaries, and an exceptions file is written
+ * for each chapter in the same format as the one produced at the end of processing a chapter.
+ *
+ * The default spelling checks are performed, with extra blank spaces removed before checking.
+ */
+public class BatchController {
+    private static final String USAGE = "Usage: --batch (-project <project name> | -folder <chapter folder> " +
+            "-dictionary <generic Dictionary.txt> [-projectDictionary <projectDictionary.txt>]) " +
+            "-output <exceptions folder> [-threads <no. of threads>]";
+    private static final int EXIT_OK = 0;
+    private static final int EXIT_CHAPTERS_FAILED = 1;
+    private static final int EXIT_FAILED = 2;
+
+    private String fileSeparator = File.separator;
+    private String rootDir = System.getProperty("user.dir") + fileSeparator;
+    private String userName = System.getProperty("user.name");
+    private String projectName;
+
+    /**
+     * Run the batch with the given command line arguments.
+     * @param args The arguments following --batch, see USAGE.
+     * @return the exit code: 0 if every chapter was checked, 1 if some chapters failed, 2 if nothing could be checked.
+     */
+    public int run(String[] args) {
+        Map<String, String> options = parseOptions(args);
+        if(options == null || !options.containsKey("-output") ||
+                options.containsKey("-project") == options.containsKey("-folder") ||
+                (options.containsKey("-folder") && !options.containsKey("-dictionary"))) {
+            System.err.println(USAGE);
+            return EXIT_FAILED;
+        }
+
+        int threads = Runtime.getRuntime().availableProcessors();
+        if(options.containsKey("-threads")) {
+            try {
+                threads = Integer.parseInt(options.get("-threads"));
+            } catch(NumberFormatException nfe) {
+                threads = 0;
+            }
+            if(threads < 1) {
+                System.err.println(USAGE);
+                return EXIT_FAILED;
+            }
+        }
+
+        File outputDir = new File(options.get("-output"));
+        if(!outputDir.isDirectory() && !outputDir.mkdirs()) {
+            System.err.println("Could not create the output folder " + outputDir.getAbsolutePath());
+            return EXIT_FAILED;
+        }
+
+        // Getting the chapters and both dictionaries, from DropBox or the local folder.
+        List<File> chapters = new ArrayList<>();
+        File genDicFile;
+        File bookDicFile;
+        if(options.containsKey("-project")) {
+            projectName = options.get("-project");
+            File[] dictionaryFiles = downloadProject(chapters);
+            if(dictionaryFiles == null) {
+                return EXIT_FAILED;
+            }
+            genDicFile = dictionaryFiles[0];
+            bookDicFile = dictionaryFiles[1];
+        } else {
+            File folder = new File(options.get("-folder"));
+            projectName = folder.getName();
+            File[] files = folder.listFiles(file -> file.isFile() && !file.isHidden());
+            if(files == null) {
+                System.err.println("Could not read the chapter folder " + folder.getAbsolutePath());
+                return EXIT_FAILED;
+            }
+            Arrays.sort(files);
+            chapters.addAll(Arrays.asList(files));
+            genDicFile = new File(options.get("-dictionary"));
+            bookDicFile = options.containsKey("-projectDictionary") ? new File(options.get("-projectDictionary")) : null;
+        }
+
+        SpellChecker spellChecker = loadDictionaries(genDicFile, bookDicFile);
+        if(spellChecker == null) {
+            return EXIT_FAILED;
+        }
+
+        // Checking the chapters at the same time. A chapter's own lines are split further on the same pool.
+        long startTime = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        Map<File, Future<Boolean>> results = new LinkedHashMap<>();
+        for(File chapter : chapters) {
+            results.put(chapter, pool.submit(() -> checkChapter(chapter, spellChecker, outputDir)));
+        }
+
+        int failed = 0;
+        for(Map.Entry<File, Future<Boolean>> result : results.entrySet()) {
+            try {
+                if(!result.getValue().get()) {
+                    failed++;
+                }
+            } catch(InterruptedException | ExecutionException e) {
+                System.err.println(result.getKey().getName() + ": " + e);
+                failed++;
+            }
+        }
+        pool.shutdown();
+
+        System.out.println("Checked " + (chapters.size() - failed) + " of " + chapters.size() + " chapters in " +
+                (System.nanoTime() - startTime) / 1000000 + " ms on " + threads + " threads.");
+        System.out.println(spellChecker.getRuleStatistics());
+        return failed == 0 ? EXIT_OK : EXIT_CHAPTERS_FAILED;
+    }
+
+    /**
+     * Read the options, each given as a name followed by its value.
+     * @return the options by name, or null if a value is missing.
+     */
+    private Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for(int i = 0; i < args.length; i += 2) {
+            if(!args[i].startsWith("-") || i + 1 == args.length) {
+                return null;
+            }
+            options.put(args[i], args[i + 1]);
+        }
+        return options;
+    }
+
+    /**
+     * Download the project's chapters and dictionaries from DropBox, keeping the local copies of
+     * files unchanged since they were last downloaded. The DropBox authorisation code must already
+     * have been saved, by logging in to the application once.
+     * @param chapters Is given the local copy of each chapter.
+     * @return the local copies of the generic and project dictionaries, or null if the download failed.
+     */
+    private File[] downloadProject(List<File> chapters) {
+        String dbxWorkingDir = "/projects/" + projectName + "/";
+        File dBAuthCodeFile = new File(rootDir + "dropBox" + fileSeparator + "authCode.txt");
+        if(!dBAuthCodeFile.exists()) {
+            System.err.println("No DropBox Authorisation Code has been saved. Please log in to the application once first.");
+            return null;
+        }
+
+        try(BufferedReader br = new BufferedReader(new FileReader(dBAuthCodeFile))) {
+            // Written in the format: "DropBox Authorisation Code:1234567aB"
+            DbxClient client = new DbxClient(new DbxRequestConfig("FolensSpellchecker/1.0",
+                    Locale.getDefault().toString()), br.readLine().split(":")[1]);
+            DropBoxCache dropBoxCache = new DropBoxCache(client, new File(rootDir + "cache"));
+
+            File setupFile = dropBoxCache.getFile(dbxWorkingDir + "setup.txt");
+            if(setupFile == null) {
+                System.err.println("Project not found on DropBox: " + projectName);
+                return null;
+            }
+            String genDicLanguage;
+            try(BufferedReader setup = new BufferedReader(new FileReader(setupFile))) {
+                // First Line example - GenDic:English(GB)
+                genDicLanguage = setup.readLine().split(":")[1];
+            }
+            File genDicFile = dropBoxCache.getFile("/generalDictionaries/" + genDicLanguage + "/Dictionary.txt");
+            if(genDicFile == null) {
+                System.err.println("Generic dictionary not found on DropBox: " + genDicLanguage);
+                return null;
+            }
+            // Null for a new project, which has no dictionary until its first chapter is finished.
+            File bookDicFile = dropBoxCache.getFile(dbxWorkingDir + "projectDictionary.txt");
+
+            DbxEntry.WithChildren listing = client.getMetadataWithChildren(dbxWorkingDir + "chapters");
+            if(listing == null) {
+                System.err.println("Project not found on DropBox: " + projectName);
+                return null;
+            }
+            for(DbxEntry child : listing.children) {
+                File chapter = child.isFile() ? dropBoxCache.getFile(dbxWorkingDir + "chapters/" + child.name) : null;
+                if(chapter != null) {     // Null if deleted since the listing
+                    chapters.add(chapter);
+                }
+            }
+            return new File[] {genDicFile, bookDicFile};
+        } catch(IOException | DbxException e) {
+            System.err.println("Downloading project " + projectName + " failed: " + e);
+            return null;
+        }
+    }
+
+    /**
+     * Load the dictionaries, shared by every chapter. The generic dictionary is only compiled again
+     * if it has changed since it was last compiled.
+     * @param genDicFile The generic dictionary.
+     * @param bookDicFile The project dictionary, or null if there is none.
+     * @return the spellchecker over the dictionaries, or null if a dictionary could not be read.
+     */
+    private SpellChecker loadDictionaries(File genDicFile, File bookDicFile) {
+        Dictionary genDic;
+        List<String> bookDicWords = new ArrayList<>();
+        try {
+            genDic = DictionaryCompiler.load(DictionaryCompiler.getCompiledFile(genDicFile));
+
+            if(bookDicFile != null) {
+                bookDicWords.addAll(ProjectDictionaryFile.read(bookDicFile).keySet());
+            }
+        } catch(IOException ioe) {
+            System.err.println("Reading the dictionaries failed: " + ioe);
+            return null;
+        }
+
+        return new SpellChecker(genDic, bookDicWords);
+    }
+
+    /**
+     * Convert and spellcheck one chapter, then write its exceptions file.
+     * @param chapter The Word/PDF/InDesign file of the chapter.
+     * @param spellChecker The spellchecker shared by every chapter.
+     * @param outputDir Folder the exceptions file is written to.
+     * @return whether or not the chapter was checked without errors.
+     */
+    private boolean checkChapter(File chapter, SpellChecker spellChecker, File outputDir) {
+        String chapterName = chapter.getName().contains(".") ?
+                chapter.getName().substring(0, chapter.getName().lastIndexOf(".")) : chapter.getName();
+
+        List<String> lines = new ArrayList<>();
+        try(FileInputStream inputStream = new FileInputStream(chapter)) {
+            LineSplitter lineSplitter = new LineSplitter(line -> lines.add(line));
+            new AutoDetectParser().parse(inputStream, new BodyContentHandler(lineSplitter), new Metadata(), new ParseContext());
+            lineSplitter.finish();
+        } catch(IOException | TikaException | SAXException e) {
+            System.err.println(chapter.getName() + ": " + e);
+            return false;
+        }
+
+        SpellCheckResult result = spellChecker.check(lines.toArray(new String[lines.size()]), SpellChecker.ALL_CHECKS, true);
+
+        // The same exceptions as the Exceptions List, none of them reviewed yet.
+        ExceptionList exceptions = new ExceptionList();
+        exceptions.addAll(result, userName, System.currentTimeMillis());
+        try {
+            ExceptionsReport.write(new File(outputDir, chapterName + " Exceptions.txt"), projectName, chapterName,
+                    userName, exceptions);
+        } catch(IOException ioe) {
+            System.err.println(chapter.getName() + ": " + ioe);
+            return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,122 @@
+package controllers;
+
+import com.dropbox.core.DbxClient;
+import com.dropbox.core.DbxEntry;
+import com.dropbox.core.DbxException;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * @author agent
+ * Created on 17/10/2026
+ *
+ * Local copies of DropBox files, each stored with the revision it was downloaded at.
+ * A file is only downloaded again when its revision on DropBox has changed, so dictionaries
+ * and setup files are not fetched again for every chapter.
+ *
+ * The copy of DropBox file /a/b.txt is kept in cacheDir/a/b.txt, with its revision in cacheDir/a/b.txt.rev
+ */
+class DropBoxCache {
+    private static final String REVISION_EXTENSION = ".rev";
+
+    private final DbxClient client;
+    private final File cacheDir;
+
+    /**
+     * Class constructor.
+     * @param client Client used to talk to DropBox.
+     * @param cacheDir Local directory in which the copies are kept.
+     */
+    DropBoxCache(DbxClient client, File cacheDir) {
+        this.client = client;
+        this.cacheDir = cacheDir;
+    }
+
+    /**
+     * Return a local copy of the DropBox file, downloading it only if the local copy is missing or out of date.
+     * @param dbxPath Path of the file on DropBox.
+     * @return the up to date local copy, or null if the file does not exist on DropBox.
+     * @throws DbxException if the metadata or file cannot be read.
+     * @throws IOException if the local copy cannot be written.
+     */
+    File getFile(String dbxPath) throws DbxException, IOException {
+        long checkStartTime = System.nanoTime();
+        DbxEntry entry = client.getMetadata(dbxPath);
+        Metrics.timer("DropBox revision checks", "files").record(System.nanoTime() - checkStartTime, 1);
+        if(entry == null) {
+            return null;
+        }
+        if(!entry.isFile()) {
+            throw new IOException("DropBox path is a folder, not a file: " + dbxPath);
+        }
+        String revision = entry.asFile().rev;
+
+        File localFile = getLocalFile(dbxPath);
+        if(localFile.exists() && revision.equals(getRevision(dbxPath))) {
+            Metrics.counter("DropBox downloads saved").add(1);
+            return localFile;
+        }
+
+        if(!localFile.getParentFile().exists() && !localFile.getParentFile().mkdirs()) {
+            throw new IOException("Could not create cache directory " + localFile.getParentFile().getAbsolutePath());
+        }
+
+        // Downloading the exact revision checked above, to a temporary file first so an interrupted
+        // download never leaves a partial file behind under the current revision.
+        File tempFile = new File(localFile.getPath() + ".tmp");
+        long downloadStartTime = System.nanoTime();
+        try(FileOutputStream outputStream = new FileOutputStream(tempFile)) {
+            client.getFile(dbxPath, revision, outputStream);
+        }
+        Metrics.timer("DropBox downloads", "bytes").record(System.nanoTime() - downloadStartTime, tempFile.length());
+        Files.move(tempFile.toPath(), localFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        writeRevision(dbxPath, revision);
+        return localFile;
+    }
+
+    /**
+     * Returns the revision of the local copy of the file.
+     * @param dbxPath Path of the file on DropBox.
+     * @return the revision, or null if there is no local copy.
+     */
+    String getRevision(String dbxPath) {
+        File revisionFile = new File(getLocalFile(dbxPath).getPath() + REVISION_EXTENSION);
+        if(!revisionFile.exists()) {
+            return null;
+        }
+        try(BufferedReader br = new BufferedReader(new FileReader(revisionFile))) {
+            return br.readLine();
+        } catch(IOException ioe) {
+            return null;
+        }
+    }
+
+    /**
+     * After uploading a file to DropBox, store the uploaded content as the local copy of the new
+     * revision, so it is not downloaded again.
+     * @param dbxPath Path of the file on DropBox.
+     * @param uploaded The entry returned by DropBox for the upload.
+     * @param uploadedFile The local file which was uploaded.
+     * @throws IOException if the local copy cannot be written.
+     */
+    void recordUpload(String dbxPath, DbxEntry.File uploaded, File uploadedFile) throws IOException {
+        File localFile = getLocalFile(dbxPath);
+        if(!localFile.getParentFile().exists() && !localFile.getParentFile().mkdirs()) {
+            throw new IOException("Could not create cache directory " + localFile.getParentFile().getAbsolutePath());
+        }
+        Files.copy(uploadedFile.toPath(), localFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        writeRevision(dbxPath, uploaded.rev);
+    }
+
+    private File getLocalFile(String dbxPath) {
+        return new File(cacheDir, dbxPath.substring(1).replace("/", File.separator));
+    }
+
+    private void writeRevision(String dbxPath, String revision) throws IOException {
+        try(FileWriter fWriter = new FileWriter(getLocalFile(dbxPath).getPath() + REVISION_EXTENSION, false)) {
+            fWriter.write(revision);
+        }
+    }
+}
@@ -0,0 +1,641 @@
+package controllers;
+
+import controllers.AppController.Status;
+import models.FlaggedWord;
+import models.ReasonCode;
+import models.SpellCheckResult;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+
+/**
+ * @author agent
+ * Created on 17/10/2026
+ *
+ * The exceptions found in a chapter, kept as one array per detail rather than a map per exception.
+ * Words and names are stored once and referred to by id, the reason and status as their enum,
+ * and dates as epoch milliseconds, only formatted when they are read.
+ *
+ * The exceptions are also indexed by word and reason, so the exceptions similar to one can be
+ * counted or all changed at once without going through the whole list, and the exceptions not yet
+ * reviewed are kept in a BitSet, so the next or previous one is found without going through those
+ * already reviewed.
+ *
+ * The exceptions about one word are kept in the order they are found in the chapter, by line and then
+ * where they start, followed by the others. The exceptions of a line are found by a binary search, and
+ * can be replaced without touching the rest of the list but to move it along.
+ *
+ * Changing the similar exceptions and replacing a range of exceptions give the Change which undoes
+ * them, holding only the exceptions changed or replaced, so a list can be taken back and forth through
+ * its changes without keeping a copy of it for each.
+ *
+ * getDetails gives the old map view of an exception, with the keys "Incorrect Word", "Reason",
+ * "Occurrence", "Line", "Start", "End", "Created Date", "Created By", "Status", "Replacement",
+ * "Replacement Authorised By" and "Last Modified". "Line", "Start" and "End" are only there for
+ * exceptions about one word.
+ */
+final class ExceptionList {
+    private static final DateTimeFormatter DATE_FORMAT =
+            DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss").withZone(ZoneId.systemDefault());
+    private static final List<String> KEYS = Arrays.asList("Created By", "Created Date", "End", "Incorrect Word",
+            "Last Modified", "Line", "Occurrence", "Reason", "Replacement", "Replacement Authorised By",
+            "Start", "Status");
+    private static final ReasonCode[] REASONS = ReasonCode.values();
+    private static final Status[] STATUSES = Status.values();
+    private static final String BLANK = " ";
+
+    private final List<String> names;               // Interned words and user names, by id
+    private final Map<String, Integer> nameIds;
+    private int size;
+    private int[] words = new int[16];
+    private byte[] reasons = new byte[16];
+    private byte[] statuses = new byte[16];
+    private int[] occurrences = new int[16];
+    private int[] lines = new int[16];              // -1 if the exception is not about one word
+    private int[] starts = new int[16];
+    private int[] ends = new int[16];
+    private int[] createdBy = new int[16];
+    private long[] createdDates = new long[16];
+    private long[] lastModifiedDates = new long[16];
+    private int[] replacements = new int[16];       // Name ids, -1 meaning blank
+    private int[] replacementsAuthorisedBy = new int[16];
+    private final Map<Long, IdList> similarExceptions;    // Ids by word and reason, in order
+    private final BitSet notReviewed;
+
+    /**
+     * Class constructor, for an empty list.
+     */
+    ExceptionList() {
+        names = new ArrayList<>();
+        nameIds = new HashMap<>();
+        similarExceptions = new HashMap<>();
+        notReviewed = new BitSet();
+    }
+
+    /**
+     * Add a new, not yet reviewed, exception to the end of the list.
+     * @param word The word flagged.
+     * @param reason The reason why the word is flagged as incorrect.
+     * @param occurrence The occurrence of the word.
+     * @param line The line the word was found on, or -1 if the exception is not about one word.
+     * @param start Where the word starts in the line.
+     * @param end Where the word ends in the line.
+     * @param userName The user the exception is created by.
+     * @param date When the exception is created, in epoch milliseconds.
+     * @return the id of the exception, i.e. its position in the list.
+     */
+    int add(String word, ReasonCode reason, int occurrence, int line, int start, int end, String userName, long date) {
+        if(size == words.length) {
+            grow();
+        }
+        words[size] = idOf(word);
+        reasons[size] = (byte) reason.ordinal();
+        putStatus(size, (byte) Status.NOT_REVIEWED.ordinal());
+        occurrences[size] = occurrence;
+        lines[size] = line < 0 ? -1 : line;
+        starts[size] = start;
+        ends[size] = end;
+        createdBy[size] = idOf(userName);
+        createdDates[size] = date;
+        lastModifiedDates[size] = date;
+        replacements[size] = -1;
+        replacementsAuthorisedBy[size] = -1;
+        groupOf(size).add(size);
+        return size++;
+    }
+
+    /**
+     * Add everything found by a spellcheck to the end of the list: the flagged words, in the order they
+     * appear in the text, then an exception for each kind of paired mark counted an odd number of times.
+     * @param result What the spellcheck found.
+     * @param userName The user the exceptions are created by.
+     * @param date When the exceptions are created, in epoch milliseconds.
+     */
+    void addAll(SpellCheckResult result, String userName, long date) {
+        for(FlaggedWord flaggedWord : result.getFlaggedWords()) {
+            add(flaggedWord.getWord(), flaggedWord.getReason(), flaggedWord.getOccurrence(),
+                    flaggedWord.getLine(), flaggedWord.getStart(), flaggedWord.getEnd(), userName, date);
+        }
+        for(ReasonCode reason : result.getOddPairs()) {
+            add("", reason, 0, -1, 0, 0, userName, date);
+        }
+    }
+
+    /**
+     * Add a copy of an exception of another list to the end of this one.
+     * @param other The list the exception is in.
+     * @param id The id of the exception in the other list.
+     * @return the id of the exception in this list.
+     */
+    int addCopy(ExceptionList other, int id) {
+        if(size == words.length) {
+            grow();
+        }
+        copy(size, other, id);
+        groupOf(size).add(size);
+        return size++;
+    }
+
+    /**
+     * Replace a range of exceptions with copies of the exceptions of another list. The exceptions after
+     * the range are moved along if the number of exceptions changes, those before it are not touched.
+     * @param from The id of the first exception to replace.
+     * @param to The id after the last exception to replace.
+     * @param replacement The exceptions to put in their place, in order.
+     * @return the change which puts the replaced exceptions back.
+     */
+    Change splice(int from, int to, ExceptionList replacement) {
+        ExceptionList replaced = new ExceptionList();
+        for(int id = from; id < to; id++) {
+            replaced.addCopy(this, id);
+            groupOf(id).remove(id);
+        }
+        int shift = replacement.size - (to - from);
+        if(shift != 0) {
+            while(size + shift > words.length) {
+                grow();
+            }
+            moveAlong(to, shift);
+        }
+        for(int i = 0; i < replacement.size; i++) {
+            copy(from + i, replacement, i);
+            groupOf(from + i).insert(from + i);
+        }
+        size += shift;
+        return new Splice(from, replacement.size, replaced);
+    }
+
+    /**
+     * Returns the first exception on a line, or after it if there is none on the line.
+     * @param line The line number, or Integer.MAX_VALUE for the first exception not about one word.
+     * @return the id of the exception, or the size of the list if there is none after the line.
+     */
+    int firstOnLine(int line) {
+        int low = 0;
+        int high = size;
+        while(low < high) {
+            int middle = (low + high) >>> 1;
+            if(lines[middle] >= 0 && lines[middle] < line) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns the exception nearest a place in the chapter with the given reason, e.g. to find an
+     * exception again in another version of the list.
+     * @param line The line number, or -1 for the exceptions not about one word.
+     * @param start Where in the line.
+     * @param reason The reason the exception is for.
+     * @return the id of the exception, or -1 if there is none on the line with the reason.
+     */
+    int find(int line, int start, ReasonCode reason) {
+        int lineNo = line < 0 ? -1 : line;
+        int closest = -1;
+        for(int id = firstOnLine(line < 0 ? Integer.MAX_VALUE : line); id < size && lines[id] == lineNo; id++) {
+            if(getReason(id) == reason &&
+                    (closest < 0 || Math.abs(starts[id] - start) < Math.abs(starts[closest] - start))) {
+                closest = id;
+            }
+        }
+        return closest;
+    }
+
+    /**
+     * Number of exceptions in the list.
+     * @return exception count.
+     */
+    int size() {
+        return size;
+    }
+
+    String getWord(int id) {
+        return names.get(words[id]);
+    }
+
+    void setWord(int id, String word) {
+        groupOf(id).remove(id);
+        words[id] = idOf(word);
+        groupOf(id).insert(id);
+    }
+
+    ReasonCode getReason(int id) {
+        return REASONS[reasons[id]];
+    }
+
+    Status getStatus(int id) {
+        return STATUSES[statuses[id]];
+    }
+
+    void setStatus(int id, Status status) {
+        putStatus(id, (byte) status.ordinal());
+    }
+
+    int getOccurrence(int id) {
+        return occurrences[id];
+    }
+
+    /**
+     * Returns the line the word of the exception is on.
+     * @param id The id of the exception.
+     * @return the line number, or -1 if the exception is not about one word.
+     */
+    int getLine(int id) {
+        return lines[id];
+    }
+
+    int getStart(int id) {
+        return starts[id];
+    }
+
+    int getEnd(int id) {
+        return ends[id];
+    }
+
+    /**
+     * Move the word of the exception to another place in its line, e.g. after the line has been corrected.
+     * @param id The id of the exception.
+     * @param start Where the word starts in the line.
+     * @param end Where the word ends in the line.
+     */
+    void setPosition(int id, int start, int end) {
+        starts[id] = start;
+        ends[id] = end;
+    }
+
+    /**
+     * Returns the number of exceptions with the same word and reason as the exception, including itself.
+     * @param id The id of the exception.
+     * @return the number of similar exceptions.
+     */
+    int getSimilarCount(int id) {
+        return groupOf(id).size;
+    }
+
+    /**
+     * Change the word and status of the exception and of every exception with the same word and reason.
+     * @param id The id of the exception.
+     * @param word The new word.
+     * @param status The new status.
+     * @return the change which gives the exceptions their word and status back.
+     */
+    Change changeSimilar(int id, String word, Status status) {
+        IdList group = groupOf(id);
+        byte[] newStatuses = new byte[group.size];
+        Arrays.fill(newStatuses, (byte) status.ordinal());
+        return relabel(Arrays.copyOf(group.ids, group.size), idOf(word), newStatuses);
+    }
+
+    // Change the word and statuses of exceptions which all have the same word and reason, moving them to the
+    // exceptions similar to them under the new word.
+    private Change relabel(int[] ids, int wordId, byte[] newStatuses) {
+        int reason = reasons[ids[0]];
+        long oldKey = groupKey(words[ids[0]], reason);
+        IdList oldGroup = similarExceptions.get(oldKey);
+        oldGroup.removeAll(ids);
+        if(oldGroup.size == 0) {
+            similarExceptions.remove(oldKey);
+        }
+
+        Relabel undo = new Relabel(ids, words[ids[0]], new byte[ids.length]);
+        for(int i = 0; i < ids.length; i++) {
+            undo.statuses[i] = statuses[ids[i]];
+            words[ids[i]] = wordId;
+            putStatus(ids[i], newStatuses[i]);
+        }
+        IdList group = new IdList(ids);
+        IdList existing = similarExceptions.get(groupKey(wordId, reason));
+        similarExceptions.put(groupKey(wordId, reason), existing == null ? group : existing.merge(group));
+        return undo;
+    }
+
+    /**
+     * Returns the first exception not yet reviewed at or after the given one.
+     * @param id The id to start looking from.
+     * @return the id of the exception, or -1 if every exception from there on has been reviewed.
+     */
+    int nextNotReviewed(int id) {
+        return id >= size ? -1 : notReviewed.nextSetBit(Math.max(id, 0));
+    }
+
+    /**
+     * Returns the last exception not yet reviewed at or before the given one.
+     * @param id The id to start looking from.
+     * @return the id of the exception, or -1 if every exception up to there has been reviewed.
+     */
+    int previousNotReviewed(int id) {
+        return id < 0 ? -1 : notReviewed.previousSetBit(Math.min(id, size - 1));
+    }
+
+    /**
+     * Returns a view of the exception as a map of its details. Changes to the view change the list.
+     * @param id The id of the exception.
+     * @return the details, or null if there is no exception with the id.
+     */
+    Map<String, String> getDetails(int id) {
+        return id < 0 || id >= size ? null : new Details(id);
+    }
+
+    private int idOf(String name) {
+        Integer id = nameIds.get(name);
+        if(id == null) {
+            id = names.size();
+            names.add(name);
+            nameIds.put(name, id);
+        }
+        return id;
+    }
+
+    // Copy an exception of another list over one of this list, leaving the index by word and reason as it is.
+    private void copy(int id, ExceptionList other, int otherId) {
+        words[id] = idOf(other.getWord(otherId));
+        reasons[id] = other.reasons[otherId];
+        putStatus(id, other.statuses[otherId]);
+        occurrences[id] = other.occurrences[otherId];
+        lines[id] = other.lines[otherId];
+        starts[id] = other.starts[otherId];
+        ends[id] = other.ends[otherId];
+        createdBy[id] = idOf(other.names.get(other.createdBy[otherId]));
+        createdDates[id] = other.createdDates[otherId];
+        lastModifiedDates[id] = other.lastModifiedDates[otherId];
+        replacements[id] = other.replacements[otherId] < 0 ? -1 : idOf(other.names.get(other.replacements[otherId]));
+        replacementsAuthorisedBy[id] = other.replacementsAuthorisedBy[otherId] < 0 ? -1 :
+                idOf(other.names.get(other.replacementsAuthorisedBy[otherId]));
+    }
+
+    // Move the exceptions from an id to the end of the list along by a number of places, renumbering them in
+    // the index by word and reason and in the set of those not reviewed. There must be room for them.
+    private void moveAlong(int from, int shift) {
+        int count = size - from;
+        System.arraycopy(words, from, words, from + shift, count);
+        System.arraycopy(reasons, from, reasons, from + shift, count);
+        System.arraycopy(statuses, from, statuses, from + shift, count);
+        System.arraycopy(occurrences, from, occurrences, from + shift, count);
+        System.arraycopy(lines, from, lines, from + shift, count);
+        System.arraycopy(starts, from, starts, from + shift, count);
+        System.arraycopy(ends, from, ends, from + shift, count);
+        System.arraycopy(createdBy, from, createdBy, from + shift, count);
+        System.arraycopy(createdDates, from, createdDates, from + shift, count);
+        System.arraycopy(lastModifiedDates, from, lastModifiedDates, from + shift, count);
+        System.arraycopy(replacements, from, replacements, from + shift, count);
+        System.arraycopy(replacementsAuthorisedBy, from, replacementsAuthorisedBy, from + shift, count);
+        for(IdList group : similarExceptions.values()) {
+            group.moveAlong(from, shift);
+        }
+        BitSet moved = notReviewed.get(from, size);
+        notReviewed.clear(Math.min(from, from + shift), size);
+        for(int id = moved.nextSetBit(0); id >= 0; id = moved.nextSetBit(id + 1)) {
+            notReviewed.set(from + shift + id);
+        }
+    }
+
+    private void putStatus(int id, byte status) {
+        statuses[id] = status;
+        notReviewed.set(id, status == Status.NOT_REVIEWED.ordinal());
+    }
+
+    private IdList groupOf(int id) {
+        return similarExceptions.computeIfAbsent(groupKey(words[id], reasons[id]), key -> new IdList());
+    }
+
+    private static long groupKey(int wordId, int reason) {
+        return ((long) wordId << 8) | reason;
+    }
+
+    private void grow() {
+        int capacity = words.length * 2;
+        words = Arrays.copyOf(words, capacity);
+        reasons = Arrays.copyOf(reasons, capacity);
+        statuses = Arrays.copyOf(statuses, capacity);
+        occurrences = Arrays.copyOf(occurrences, capacity);
+        lines = Arrays.copyOf(lines, capacity);
+        starts = Arrays.copyOf(starts, capacity);
+        ends = Arrays.copyOf(ends, capacity);
+        createdBy = Arrays.copyOf(createdBy, capacity);
+        createdDates = Arrays.copyOf(createdDates, capacity);
+        lastModifiedDates = Arrays.copyOf(lastModifiedDates, capacity);
+        replacements = Arrays.copyOf(replacements, capacity);
+        replacementsAuthorisedBy = Arrays.copyOf(replacementsAuthorisedBy, capacity);
+    }
+
+    /**
+     * A change to the list which can be undone, e.g. by undo and redo. Making it gives the change which
+     * undoes it, in turn. Changes are made to the list they came from, the last undone first.
+     */
+    interface Change {
+        /**
+         * Make the change.
+         * @param list The list the change came from.
+         * @return the change which undoes it.
+         */
+        Change makeTo(ExceptionList list);
+    }
+
+    /**
+     * Replacing a range of exceptions.
+     */
+    private static final class Splice implements Change {
+        private final int from;
+        private final int count;                    // Exceptions replaced
+        private final ExceptionList replacement;
+
+        Splice(int from, int count, ExceptionList replacement) {
+            this.from = from;
+            this.count = count;
+            this.replacement = replacement;
+        }
+
+        @Override
+        public Change makeTo(ExceptionList list) {
+            return list.splice(from, from + count, replacement);
+        }
+    }
+
+    /**
+     * Changing the word and statuses of exceptions with the same word and reason.
+     */
+    private static final class Relabel implements Change {
+        private final int[] ids;            // In order
+        private final int word;
+        private final byte[] statuses;      // One for each id
+
+        Relabel(int[] ids, int word, byte[] statuses) {
+            this.ids = ids;
+            this.word = word;
+            this.statuses = statuses;
+        }
+
+        @Override
+        public Change makeTo(ExceptionList list) {
+            return list.relabel(ids, word, statuses);
+        }
+    }
+
+    /**
+     * A growable list of exception ids, kept in order.
+     */
+    private static final class IdList {
+        private int[] ids;
+        private int size;
+
+        IdList() {
+            ids = new int[2];
+        }
+
+        IdList(int[] ids) {
+            this.ids = Arrays.copyOf(ids, Math.max(ids.length, 2));
+            size = ids.length;
+        }
+
+        void add(int id) {
+            if(size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+
+        void insert(int id) {
+            add(id);
+            for(int i = size - 1; i > 0 && ids[i - 1] > id; i--) {
+                ids[i] = ids[i - 1];
+                ids[i - 1] = id;
+            }
+        }
+
+        void remove(int id) {
+            int i = Arrays.binarySearch(ids, 0, size, id);
+            if(i >= 0) {
+                System.arraycopy(ids, i + 1, ids, i, size - i - 1);
+                size--;
+            }
+        }
+
+        void moveAlong(int from, int shift) {
+            int i = Arrays.binarySearch(ids, 0, size, from);
+            for(i = i < 0 ? -i - 1 : i; i < size; i++) {
+                ids[i] += shift;
+            }
+        }
+
+        IdList merge(IdList other) {
+            int[] merged = new int[Math.max(size + other.size, 2)];
+            int i = 0, j = 0, k = 0;
+            while(i < size || j < other.size) {
+                merged[k++] = j == other.size || (i < size && ids[i] < other.ids[j]) ? ids[i++] : other.ids[j++];
+            }
+            ids = merged;
+            size = k;
+            return this;
+        }
+
+        // Both lists of ids are in order.
+        void removeAll(int[] removed) {
+            int kept = 0;
+            for(int i = 0, j = 0; i < size; i++) {
+                while(j < removed.length && removed[j] < ids[i]) {
+                    j++;
+                }
+                if(j == removed.length || removed[j] != ids[i]) {
+                    ids[kept++] = ids[i];
+                }
+            }
+            size = kept;
+        }
+    }
+
+    /**
+     * The map view of one exception. Values are read from the arrays, and written back to them, as they are used.
+     */
+    private final class Details extends AbstractMap<String, String> {
+        private final int id;
+
+        Details(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public String get(Object key) {
+            if(!(key instanceof String)) {
+                return null;
+            }
+            switch((String) key) {
+                case "Incorrect Word":
+                    return getWord(id);
+                case "Reason":
+                    return getReason(id).getText();
+                case "Occurrence":
+                    return "" + occurrences[id];
+                case "Line":
+                    return lines[id] < 0 ? null : "" + lines[id];
+                case "Start":
+                    return lines[id] < 0 ? null : "" + starts[id];
+                case "End":
+                    return lines[id] < 0 ? null : "" + ends[id];
+                case "Created Date":
+                    return DATE_FORMAT.format(Instant.ofEpochMilli(createdDates[id]));
+                case "Created By":
+                    return names.get(createdBy[id]);
+                case "Status":
+                    return getStatus(id).getText();
+                case "Replacement":
+                    return replacements[id] < 0 ? BLANK : names.get(replacements[id]);
+                case "Replacement Authorised By":
+                    return replacementsAuthorisedBy[id] < 0 ? BLANK : names.get(replacementsAuthorisedBy[id]);
+                case "Last Modified":
+                    return DATE_FORMAT.format(Instant.ofEpochMilli(lastModifiedDates[id]));
+                default:
+                    return null;
+            }
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public String put(String key, String value) {
+            String previous = get(key);
+            switch(key) {
+                case "Incorrect Word":
+                    setWord(id, value);
+                    break;
+                case "Status":
+                    for(Status status : STATUSES) {
+                        if(status.getText().equals(value)) {
+                            setStatus(id, status);
+                            return previous;
+                        }
+                    }
+                    throw new IllegalArgumentException("Unknown status: " + value);
+                case "Replacement":
+                    replacements[id] = BLANK.equals(value) ? -1 : idOf(value);
+                    break;
+                case "Replacement Authorised By":
+                    replacementsAuthorisedBy[id] = BLANK.equals(value) ? -1 : idOf(value);
+                    break;
+                default:
+                    throw new UnsupportedOperationException("The exception detail cannot be changed: " + key);
+            }
+            return previous;
+        }
+
+        @Override
+        public Set<Entry<String, String>> entrySet() {
+            // Built when asked for, it is only used to list or copy all the details.
+            Set<Entry<String, String>> entries = new LinkedHashSet<>();
+            for(String key : KEYS) {
+                String value = get(key);
+                if(value != null) {
+                    entries.add(new SimpleImmutableEntry<>(key, value));
+                }
+            }
+            return entries;
+        }
+    }
+}
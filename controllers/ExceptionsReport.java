@@ -0,0 +1,51 @@
+package controllers;
+
+import controllers.AppController.Status;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * @author agent
+ * Created on 17/10/2026
+ *
+ * The exceptions file of a chapter, which the user can print: a title line, a header, then the word,
+ * reason and number of similar exceptions of every exception not yet reviewed. Written at the end of
+ * processing a chapter and, for every chapter, by the batch mode.
+ */
+final class ExceptionsReport {
+    private ExceptionsReport() {
+    }
+
+    /**
+     * Write the exceptions not yet reviewed to a file.
+     * @param file The file to write, replaced if it exists.
+     * @param projectName The project of the chapter.
+     * @param chapterName The chapter.
+     * @param userName The user the file is created by.
+     * @param exceptions The exceptions of the chapter.
+     * @throws IOException if the file cannot be written.
+     */
+    static void write(File file, String projectName, String chapterName, String userName,
+                      ExceptionList exceptions) throws IOException {
+        try(FileWriter fStream = new FileWriter(file, false);
+            BufferedWriter out = new BufferedWriter(fStream)) {
+            out.write(projectName + ", " + chapterName + ", Created: " + userName + ", " +
+                    new SimpleDateFormat("dd MMM yyyy HH:mm:ss").format(new Date()));
+            out.newLine();
+            out.write("Incorrect Word, Reason Code, Occurrences");
+            out.newLine();
+            for(int i = 0; i < exceptions.size(); i++) {
+                if(exceptions.getStatus(i) == Status.NOT_REVIEWED) {
+                    out.write(exceptions.getWord(i) + ", " + exceptions.getReason(i).getText() + ", "
+                            + exceptions.getSimilarCount(i));
+                    out.newLine();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package controllers;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * @author agent
+ * Created on 17/10/2026
+ *
+ * Timings and counts of the slow parts of a session, e.g. DropBox downloads and uploads, parsing and
+ * spellchecking chapters, so the speed of the workstations in the office can be compared. Each timer
+ * keeps how many times its part ran, how long it took in total and at most, a histogram of how long
+ * it took, and how much it got through, e.g. bytes or words. Recording is cheap and can be done from
+ * any thread.
+ *
+ * Every timer and counter can be watched while the application runs with a JMX console such as
+ * JConsole, under FolensSpellchecker, and all of them are written to a file at the end of the session.
+ * A metric which cannot be watched is still recorded, and the error is written to the error log.
+ *
+ * Usage:
+ *     long startTime = System.nanoTime();
+ *     client.getFile(dbxPath, revision, outputStream);
+ *     Metrics.timer("DropBox downloads", "bytes").record(System.nanoTime() - startTime, file.length());
+ */
+public final class Metrics {
+    private static final String JMX_DOMAIN = "FolensSpellchecker";
+    private static final Map<String, Timer> timers = new ConcurrentSkipListMap<>();
+    private static final Map<String, Counter> counters = new ConcurrentSkipListMap<>();
+    private static final long sessionStartTime = System.currentTimeMillis();
+    private static volatile BiConsumer<String, StackTraceElement[]> errorLog =
+            (errorMessage, stackTrace) -> System.err.println(errorMessage);    // As in batch mode
+
+    private Metrics() {
+    }
+
+    /**
+     * Returns the timer of the given name, creating it the first time it is asked for.
+     * @param name The name of the timer, e.g. "DropBox downloads".
+     * @param unit What the timed part gets through, e.g. "bytes".
+     * @return the timer.
+     */
+    static Timer timer(String name, String unit) {
+        return timers.computeIfAbsent(name, key -> register("Timer", key, new Timer(unit)));
+    }
+
+    /**
+     * Returns the counter of the given name, creating it the first time it is asked for.
+     * @param name The name of the counter, e.g. "Chapters checked".
+     * @return the counter.
+     */
+    static Counter counter(String name) {
+        return counters.computeIfAbsent(name, key -> register("Counter", key, new Counter()));
+    }
+
+    /**
+     * Set where errors are written, e.g. the application's error log. Until then they are written to System.err.
+     * @param log Is given the text of each error and its stack trace.
+     */
+    static void setErrorLog(BiConsumer<String, StackTraceElement[]> log) {
+        errorLog = log;
+    }
+
+    /**
+     * Write every timer and counter to a file, along with the workstation they were measured on.
+     * @param file The file to write, replaced if it exists.
+     * @param userName The user of the session, or null if nobody logged in.
+     * @throws IOException if the file cannot be written.
+     */
+    static void dump(File file, String userName) throws IOException {
+        if(file.getParentFile() != null && !file.getParentFile().exists() && !file.getParentFile().mkdirs()) {
+            throw new IOException("Could not create metrics directory " + file.getParentFile().getAbsolutePath());
+        }
+        SimpleDateFormat dateFormat = new SimpleDateFormat("dd MMM yyyy HH:mm:ss");
+        try(BufferedWriter out = new BufferedWriter(new FileWriter(file, false))) {
+            out.write("Workstation: " + getHostName() + ", User: " + userName);
+            out.newLine();
+            out.write("Session: " + dateFormat.format(new Date(sessionStartTime)) + " to " + dateFormat.format(new Date()));
+            out.newLine();
+            out.write("Processors: " + Runtime.getRuntime().availableProcessors() +
+                    ", Max memory: " + Runtime.getRuntime().maxMemory() / (1024 * 1024) + " MB" +
+                    ", Java: " + System.getProperty("java.version") +
+                    ", Operating System: " + System.getProperty("os.name") + " " + System.getProperty("os.version"));
+            out.newLine();
+            out.newLine();
+            out.write("Timer, Count, Total s, Mean ms, Median ms, 95th percentile ms, 99th percentile ms, Max ms, " +
+                    "Amount, Unit, Per second");
+            out.newLine();
+            for(Map.Entry<String, Timer> entry : timers.entrySet()) {
+                Timer timer = entry.getValue();
+                out.write(String.format("%s, %d, %.3f, %.1f, %.1f, %.1f, %.1f, %.1f, %d, %s, %.1f", entry.getKey(),
+                        timer.getCount(), timer.getTotalSeconds(), timer.getMeanMillis(), timer.getMedianMillis(),
+                        timer.getPercentile95Millis(), timer.getPercentile99Millis(), timer.getMaxMillis(),
+                        timer.getAmount(), timer.getUnit(), timer.getAmountPerSecond()));
+                out.newLine();
+            }
+            out.newLine();
+            out.write("Counter, Count");
+            out.newLine();
+            for(Map.Entry<String, Counter> entry : counters.entrySet()) {
+                out.write(entry.getKey() + ", " + entry.getValue().getCount());
+                out.newLine();
+            }
+        }
+    }
+
+    private static <T> T register(String type, String name, T metric) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.registerMBean(metric, new ObjectName(JMX_DOMAIN + ":type=" + type + ",name=" + ObjectName.quote(name)));
+        } catch(JMException jme) {
+            // Still recorded and written at the end of the session, only not watchable.
+            errorLog.accept("Could not register metric " + name + ": " + jme, jme.getStackTrace());
+        }
+        return metric;
+    }
+
+    private static String getHostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch(UnknownHostException uhe) {
+            return "unknown";
+        }
+    }
+
+    /**
+     * What a Timer shows over JMX.
+     */
+    public interface TimerMBean {
+        long getCount();
+        double getTotalSeconds();
+        double getMeanMillis();
+        double getMedianMillis();
+        double getPercentile95Millis();
+        double getPercentile99Millis();
+        double getMaxMillis();
+        long getAmount();
+        String getUnit();
+        double getAmountPerSecond();
+    }
+
+    /**
+     * What a Counter shows over JMX.
+     */
+    public interface CounterMBean {
+        long getCount();
+    }
+
+    /**
+     * How long a part of the session takes each time it runs. The histogram has a bucket for each
+     * power of two microseconds, so percentiles are given as the top of their bucket, at most twice
+     * the time they stand for.
+     */
+    public static final class Timer implements TimerMBean {
+        private static final int BUCKETS = 40;  // Bucket i holds times under 2^i microseconds, the last the rest
+
+        private final String unit;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAdder amount = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+
+        private Timer(String unit) {
+            this.unit = unit;
+        }
+
+        /**
+         * Record one run of the timed part.
+         * @param nanos How long it took, in nanoseconds.
+         * @param done How much it got through, in the timer's unit.
+         */
+        void record(long nanos, long done) {
+            count.increment();
+            totalNanos.add(nanos);
+            amount.add(done);
+            maxNanos.accumulate(nanos);
+            long micros = Math.max(nanos / 1000, 0);
+            histogram.incrementAndGet(Math.min(64 - Long.numberOfLeadingZeros(micros), BUCKETS - 1));
+        }
+
+        @Override
+        public long getCount() {
+            return count.sum();
+        }
+
+        @Override
+        public double getTotalSeconds() {
+            return totalNanos.sum() / 1e9;
+        }
+
+        @Override
+        public double getMeanMillis() {
+            long runs = count.sum();
+            return runs == 0 ? 0 : totalNanos.sum() / 1e6 / runs;
+        }
+
+        @Override
+        public double getMedianMillis() {
+            return getPercentileMillis(0.5);
+        }
+
+        @Override
+        public double getPercentile95Millis() {
+            return getPercentileMillis(0.95);
+        }
+
+        @Override
+        public double getPercentile99Millis() {
+            return getPercentileMillis(0.99);
+        }
+
+        @Override
+        public double getMaxMillis() {
+            return maxNanos.get() / 1e6;
+        }
+
+        @Override
+        public long getAmount() {
+            return amount.sum();
+        }
+
+        @Override
+        public String getUnit() {
+            return unit;
+        }
+
+        @Override
+        public double getAmountPerSecond() {
+            double seconds = getTotalSeconds();
+            return seconds == 0 ? 0 : amount.sum() / seconds;
+        }
+
+        private double getPercentileMillis(double percentile) {
+            long[] counts = new long[BUCKETS];
+            long runs = 0;
+            for(int i = 0; i < BUCKETS; i++) {
+                counts[i] = histogram.get(i);
+                runs += counts[i];
+            }
+            long rank = (long) Math.ceil(percentile * runs);
+            long seen = 0;
+            for(int i = 0; i < BUCKETS - 1; i++) {
+                seen += counts[i];
+                if(seen >= rank && seen > 0) {
+                    return Math.min((1L << i) / 1000.0, getMaxMillis());
+                }
+            }
+            return getMaxMillis();
+        }
+    }
+
+    /**
+     * How many times something happened in the session.
+     */
+    public static final class Counter implements CounterMBean {
+        private final LongAdder count = new LongAdder();
+
+        private Counter() {
+        }
+
+        /**
+         * Count things which happened.
+         * @param things How many.
+         */
+        void add(long things) {
+            count.add(things);
+        }
+
+        @Override
+        public long getCount() {
+            return count.sum();
+        }
+    }
+}
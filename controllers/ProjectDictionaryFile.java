@@ -0,0 +1,64 @@
+package controllers;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @author agent
+ * Created on 17/10/2026
+ *
+ * The project dictionary file kept on DropBox: a title line, then a line for each word with who
+ * added it and when. In memory each word maps to its "Added By" and "Last Modified" details.
+ * Read by the application and the batch mode, and written at the end of processing a chapter.
+ */
+final class ProjectDictionaryFile {
+    private ProjectDictionaryFile() {
+    }
+
+    /**
+     * Read a project dictionary file.
+     * @param file The file to read.
+     * @return the words of the project dictionary, with their details.
+     * @throws IOException if the file cannot be read.
+     */
+    static Map<String, Map<String, String>> read(File file) throws IOException {
+        Map<String, Map<String, String>> dictionary = new HashMap<>();
+        String currentLine;
+        try(BufferedReader br = new BufferedReader(new FileReader(file))) {
+            br.readLine();  // Title Line
+            while((currentLine = br.readLine()) != null){
+                String[] currentLineDetails = currentLine.split(",");
+                Map<String, String> details = new HashMap<>();
+                details.put("Added By", currentLineDetails[1]);
+                details.put("Last Modified", currentLineDetails[2]);
+                dictionary.put(currentLineDetails[0], details);
+            }
+        }
+        return dictionary;
+    }
+
+    /**
+     * Write a project dictionary file.
+     * @param file The file to write, replaced if it exists.
+     * @param dictionary The words of the project dictionary, with their details.
+     * @throws IOException if the file cannot be written.
+     */
+    static void write(File file, Map<String, Map<String, String>> dictionary) throws IOException {
+        try(FileWriter fStream = new FileWriter(file, false);
+            BufferedWriter out = new BufferedWriter(fStream)) {
+            out.write("Correct Word, Added By, Added At");
+            out.newLine();
+            for(Map.Entry<String, Map<String, String>> entry : dictionary.entrySet()) {
+                out.write(entry.getKey() + ", " + entry.getValue().get("Added By") + ", " +
+                        entry.getValue().get("Last Modified"));
+                out.newLine();
+            }
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package controllers;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * @author agent
+ * Created on 17/10/2026
+ *
+ * How far a long task the user is waiting for has got, e.g. converting and spellchecking a chapter,
+ * and a way for the user to cancel it. The task goes through stages, each counting bytes done out of
+ * a total which may not be known, or describing how much of it is done itself, e.g. in lines. It is
+ * written to by the task's threads and read by the GUI's.
+ *
+ * Cancelling is cooperative: the task checks isCancelled() between steps, streams being read through
+ * track() stop with an InterruptedIOException, and actions given to whenCancelled() are run, e.g. to
+ * stop waiting on a queue.
+ */
+public final class TaskProgress {
+    private volatile String stage = "Starting";
+    private volatile long total = -1;   // -1 if not known
+    private volatile long done;
+    private volatile long stageStartTime = System.nanoTime();
+    private volatile Supplier<String> details;  // How much of the stage is done, if not counted in bytes
+    private volatile boolean cancelled;
+    private final List<Runnable> cancelActions = new ArrayList<>();
+
+    /**
+     * Start the next stage of the task.
+     * @param stage What the task is doing, e.g. "Uploading the chapter".
+     * @param total Number of bytes the stage will go through, -1 if not known.
+     */
+    void startStage(String stage, long total) {
+        this.stage = stage;
+        this.total = total;
+        this.done = 0;
+        this.details = null;
+        this.stageStartTime = System.nanoTime();
+    }
+
+    /**
+     * Start the next stage of the task, which describes how much of it is done itself. Its total is not known.
+     * @param stage What the task is doing, e.g. "Converting and spellchecking the chapter".
+     * @param details Describes how much of the stage is done, e.g. "1200 lines parsed, 1024 spellchecked".
+     */
+    void startStage(String stage, Supplier<String> details) {
+        startStage(stage, -1);
+        this.details = details;
+    }
+
+    /**
+     * Count bytes done in the current stage. Only called by one thread at a time.
+     * @param bytes Number of bytes.
+     */
+    void advance(long bytes) {
+        done += bytes;
+    }
+
+    /**
+     * Returns a stream which counts the bytes read from it as done, and stops being read once the
+     * task is cancelled.
+     * @param in The stream to read.
+     * @return the counting stream.
+     */
+    InputStream track(InputStream in) {
+        return new FilterInputStream(in) {
+            @Override
+            public int read() throws IOException {
+                checkCancelled();
+                int b = super.read();
+                if(b >= 0) {
+                    advance(1);
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                checkCancelled();
+                int read = super.read(buffer, offset, length);
+                if(read > 0) {
+                    advance(read);
+                }
+                return read;
+            }
+
+            private void checkCancelled() throws InterruptedIOException {
+                if(cancelled) {
+                    throw new InterruptedIOException("Cancelled by the user");
+                }
+            }
+        };
+    }
+
+    /**
+     * Ask the task to stop at the next point it can.
+     */
+    public synchronized void cancel() {
+        if(!cancelled) {
+            cancelled = true;
+            for(Runnable action : cancelActions) {
+                action.run();
+            }
+        }
+    }
+
+    /**
+     * Run an action when the task is cancelled, on the thread cancelling it, or now if it already is.
+     * @param action The action, which should be quick.
+     */
+    synchronized void whenCancelled(Runnable action) {
+        if(cancelled) {
+            action.run();
+        } else {
+            cancelActions.add(action);
+        }
+    }
+
+    /**
+     * Whether the user has cancelled the task.
+     * @return true if cancelled.
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * How much of the current stage is done.
+     * @return between 0 and 1, or -1 if the total is not known.
+     */
+    public double getFraction() {
+        long stageTotal = total;
+        return stageTotal <= 0 ? -1 : Math.min((double) done / stageTotal, 1);
+    }
+
+    /**
+     * Describes the current stage, how much of it is done and how fast it is going,
+     * e.g. "Uploading the chapter: 1.2 MB of 3.4 MB, 850.0 KB/s".
+     * @return the description.
+     */
+    public String getDescription() {
+        Supplier<String> stageDetails = details;
+        if(stageDetails != null) {
+            return stage + ": " + stageDetails.get();
+        }
+        long stageDone = done;
+        long stageTotal = total;
+        if(stageDone == 0) {
+            return stage + "...";
+        }
+        double seconds = Math.max(System.nanoTime() - stageStartTime, 1) / 1e9;
+        return stage + ": " + formatBytes(stageDone) + (stageTotal > 0 ? " of " + formatBytes(stageTotal) : "") +
+                ", " + formatBytes((long) (stageDone / seconds)) + "/s";
+    }
+
+    private static String formatBytes(long bytes) {
+        if(bytes < 1024) {
+            return bytes + " bytes";
+        } else if(bytes < 1024 * 1024) {
+            return String.format("%.1f KB", bytes / 1024.0);
+        }
+        return String.format("%.1f MB", bytes / (1024.0 * 1024));
+    }
+}
@@ -1,21 +1,35 @@
 package main;
 
 import controllers.AppController;
+import controllers.BatchController;
 import javafx.application.Application;
 import javafx.stage.Stage;
 
+import java.util.Arrays;
+
 /**
  * @author Izabella Szabo
  * Created on 24/12/2015.
  */
 public class Main extends Application {
+    private AppController appController;
 
     public static void main(String[] args){
+        if(args.length > 0 && args[0].equals("--batch")) {
+            // Headless, checking a whole project or folder of chapters.
+            System.exit(new BatchController().run(Arrays.copyOfRange(args, 1, args.length)));
+        }
         launch(args);   // Method will call the Start Method below.
     }
 
     @Override
     public void start(Stage primaryStage) throws Exception {
-        new AppController().start(primaryStage);
+        appController = new AppController();
+        appController.start(primaryStage);
+    }
+
+    @Override
+    public void stop() throws Exception {
+        appController.stop();
     }
 }
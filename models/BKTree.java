@@ -0,0 +1,155 @@
+package models;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * @author agent
+ * Created on 17/10/2026
+ *
+ * Suggestions from a BK-tree of the dictionary words. Each child of a node is filed under its edit
+ * distance from the node's word, so by the triangle inequality a search for words within distance n
+ * of a misspelled word only needs to visit children filed within n of the distance to their parent.
+ *
+ * The optimal string alignment distance used for suggestions does not obey the triangle inequality
+ * (ca -> ac -> abc is 1 + 1, but ca -> abc is 3), so the tree is arranged by the unrestricted
+ * Damerau-Levenshtein distance instead, which does and is never larger. The search covers
+ * MAX_EDIT_DISTANCE in that distance and each word found is then checked with the real one.
+ *
+ * Uses a small fraction of the memory of SymSpellIndex, as it only stores one node per word, but each
+ * search computes the edit distance to a good part of the dictionary, taking milliseconds rather than
+ * microseconds. Nodes are held in plain int arrays rather than objects.
+ */
+public final class BKTree implements Suggester {
+    private static final int NONE = -1;
+
+    private final Dictionary[] dictionaries;
+    private final int[] firstIds;       // Id of the first word of each dictionary
+    private final int[] nodeWords;      // Word id of each node, node 0 being the root
+    private final int[] firstChild;
+    private final int[] nextSibling;
+    private final int[] parentDistance; // Distance from the parent's word to this node's word
+    private final long buildTime;
+
+    /**
+     * Class constructor. Builds the tree over every word of the dictionaries.
+     * @param dictionaries The dictionaries to suggest words from.
+     */
+    public BKTree(Dictionary... dictionaries) {
+        long startTime = System.nanoTime();
+        this.dictionaries = dictionaries;
+        firstIds = new int[dictionaries.length];
+
+        int noOfWords = 0;
+        for(int i = 0; i < dictionaries.length; i++) {
+            firstIds[i] = noOfWords;
+            noOfWords += dictionaries[i].size();
+        }
+        nodeWords = new int[noOfWords];
+        firstChild = new int[noOfWords];
+        nextSibling = new int[noOfWords];
+        parentDistance = new int[noOfWords];
+
+        // Dictionaries are sorted, and adding the words in order would give long chains of similar
+        // words; a fixed shuffle keeps the tree bushy and the build repeatable.
+        for(int i = 0; i < noOfWords; i++) {
+            nodeWords[i] = i;
+        }
+        Random random = new Random(noOfWords);
+        for(int i = noOfWords - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = nodeWords[i];
+            nodeWords[i] = nodeWords[j];
+            nodeWords[j] = swap;
+        }
+
+        for(int node = 0; node < noOfWords; node++) {
+            firstChild[node] = NONE;
+            nextSibling[node] = NONE;
+            if(node > 0) {
+                insert(node);
+            }
+        }
+        buildTime = (System.nanoTime() - startTime) / 1000000;
+    }
+
+    @Override
+    public List<String> suggest(String word, int maxSuggestions) {
+        if(word.isEmpty() || nodeWords.length == 0) {
+            return new ArrayList<>();
+        }
+        // Dictionary words are mostly lower case, a capital at the start of a sentence is put back afterwards.
+        String lowerCaseWord = word.toLowerCase();
+        boolean capitalised = !word.equals(lowerCaseWord) && Character.isUpperCase(word.charAt(0));
+        BitParallelDistance distanceFrom = new BitParallelDistance(lowerCaseWord);
+
+        List<Suggestion> suggestions = new ArrayList<>();
+        int[] stack = new int[64];
+        int stackSize = 0;
+        stack[stackSize++] = 0;
+        while(stackSize > 0) {
+            int node = stack[--stackSize];
+            String nodeWord = wordWithId(nodeWords[node]);
+            int distance = EditDistance.damerauLevenshteinBetween(lowerCaseWord, nodeWord);
+            if(distance <= MAX_EDIT_DISTANCE) {
+                // The same below 2; from 2 a transposed letter may also have been edited, e.g. ca and abc.
+                int suggestionDistance = distance < 2 ? distance : distanceFrom.to(nodeWord);
+                if(suggestionDistance <= MAX_EDIT_DISTANCE) {
+                    suggestions.add(new Suggestion(nodeWord, suggestionDistance));
+                }
+            }
+            for(int child = firstChild[node]; child != NONE; child = nextSibling[child]) {
+                if(Math.abs(parentDistance[child] - distance) <= MAX_EDIT_DISTANCE) {
+                    if(stackSize == stack.length) {
+                        stack = Arrays.copyOf(stack, stack.length * 2);
+                    }
+                    stack[stackSize++] = child;
+                }
+            }
+        }
+        return Suggestion.best(suggestions, word, capitalised, maxSuggestions);
+    }
+
+    @Override
+    public long getBuildTime() {
+        return buildTime;
+    }
+
+    @Override
+    public long getMemoryFootprint() {
+        return nodeWords.length * 16L + firstIds.length * 4L;
+    }
+
+    // Walk down from the root to where the node's word belongs and hang it there.
+    private void insert(int node) {
+        String word = wordWithId(nodeWords[node]);
+        int parent = 0;
+        while(true) {
+            int distance = EditDistance.damerauLevenshteinBetween(word, wordWithId(nodeWords[parent]));
+            if(distance == 0) {
+                return;     // The same word in both dictionaries, the node is left unlinked
+            }
+            int child = firstChild[parent];
+            while(child != NONE && parentDistance[child] != distance) {
+                child = nextSibling[child];
+            }
+            if(child == NONE) {
+                parentDistance[node] = distance;
+                nextSibling[node] = firstChild[parent];
+                firstChild[parent] = node;
+                return;
+            }
+            parent = child;
+        }
+    }
+
+    private String wordWithId(int id) {
+        int i = dictionaries.length - 1;
+        while(firstIds[i] > id) {
+            i--;
+        }
+        return dictionaries[i].wordAt(id - firstIds[i]);
+    }
+}
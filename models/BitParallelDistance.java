@@ -0,0 +1,94 @@
+package models;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @author agent
+ * Created on 17/10/2026
+ *
+ * Optimal string alignment distances from one word to many others, using Myers' bit-parallel algorithm
+ * with Hyyrö's extension for transpositions. A whole column of the
+ * edit distance table is held in the bits of a long, so comparing against a word takes a handful of
+ * operations per letter rather than one per cell. Words longer than 64 chars fall back to EditDistance.
+ */
+public final class BitParallelDistance {
+    private static final int MAX_BIT_PARALLEL_LENGTH = 64;
+
+    private final String word;
+    private final long[] asciiMasks = new long[128];    // For each char, the positions it occurs at in the word
+    private final Map<Character, Long> otherMasks = new HashMap<>();
+    private final long lastBit;
+    private final long allBits;
+
+    /**
+     * Class constructor, preparing to compare the word against others.
+     * @param word The word distances are measured from.
+     */
+    public BitParallelDistance(String word) {
+        this.word = word;
+        int length = Math.min(word.length(), MAX_BIT_PARALLEL_LENGTH);
+        for(int i = 0; i < length; i++) {
+            char c = word.charAt(i);
+            if(c < 128) {
+                asciiMasks[c] |= 1L << i;
+            } else {
+                otherMasks.merge(c, 1L << i, (a, b) -> a | b);
+            }
+        }
+        lastBit = length == 0 ? 0 : 1L << (length - 1);
+        allBits = length == 0 ? 0 : -1L >>> (MAX_BIT_PARALLEL_LENGTH - length);
+    }
+
+    /**
+     * Calculate the optimal string alignment distance from the word to another, as EditDistance.between does.
+     * @param other The word to compare against.
+     * @return the edit distance.
+     */
+    public int to(CharSequence other) {
+        if(word.length() > MAX_BIT_PARALLEL_LENGTH) {
+            return EditDistance.between(word, other, Integer.MAX_VALUE - 1);
+        }
+        int length = word.length();
+        if(length == 0) {
+            return other.length();
+        }
+
+        long positiveVertical = allBits;
+        long negativeVertical = 0;
+        long previousDiagonal = 0;
+        long previousMatches = 0;
+        int distance = length;
+
+        for(int j = 0; j < other.length(); j++) {
+            long matches = matchMask(other.charAt(j));
+            long diagonal = (((matches & positiveVertical) + positiveVertical) ^ positiveVertical) |
+                    matches | negativeVertical | ((((~previousDiagonal) & matches) << 1) & previousMatches);
+            long positiveHorizontal = negativeVertical | ~(diagonal | positiveVertical);
+            long negativeHorizontal = diagonal & positiveVertical;
+
+            if((positiveHorizontal & lastBit) != 0) {
+                distance++;
+            } else if((negativeHorizontal & lastBit) != 0) {
+                distance--;
+            }
+
+            positiveHorizontal = (positiveHorizontal << 1) | 1;
+            negativeHorizontal <<= 1;
+            positiveVertical = (negativeHorizontal | ~(diagonal | positiveHorizontal)) & allBits;
+            negativeVertical = positiveHorizontal & diagonal & allBits;
+
+            previousDiagonal = diagonal;
+            previousMatches = matches;
+        }
+        return distance;
+    }
+
+    private long matchMask(char c) {
+        if(c < 128) {
+            return asciiMasks[c];
+        }
+        Long mask = otherMasks.get(c);
+        return mask == null ? 0 : mask;
+    }
+}
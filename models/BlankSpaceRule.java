@@ -0,0 +1,19 @@
+package models;
+
+/**
+ * @author agent
+ * Created on 17/10/2026
+ *
+ * Flags more than one blank space between words.
+ */
+public final class BlankSpaceRule implements WordRule {
+    @Override
+    public ReasonCode getReasonCode() {
+        return ReasonCode.BLANK_SPACE;
+    }
+
+    @Override
+    public boolean isFlagged(Token previousWord, Token currentWord) {
+        return currentWord.getType() == TokenType.BLANK;
+    }
+}
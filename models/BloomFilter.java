@@ -0,0 +1,127 @@
+package models;
+
+import java.nio.ByteBuffer;
+
+/**
+ * @author agent
+ * Created on 17/10/2026
+ *
+ * A Bloom filter of words. mightContain never gives a false negative: if it returns false the
+ * word was definitely never added. A true result has to be confirmed against the real dictionaries.
+ *
+ * Words are hashed in their UTF-8 form, so the words of a dictionary stored as UTF-8 can be added
+ * straight from its bytes.
+ */
+public final class BloomFilter {
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final long[] bits;
+    private final long bitCount;
+    private final int noOfHashes;
+
+    /**
+     * Class constructor.
+     * @param expectedWords Number of words expected to be added.
+     * @param falsePositiveRate Wanted rate of false positives once all the expected words are added, e.g. 0.01.
+     */
+    public BloomFilter(int expectedWords, double falsePositiveRate) {
+        int words = Math.max(expectedWords, 1);
+        long optimalBits = (long) Math.ceil(-words * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        bits = new long[(int) Math.max(1, (optimalBits + 63) / 64)];
+        bitCount = bits.length * 64L;
+        noOfHashes = Math.max(1, (int) Math.round((double) bitCount / words * Math.log(2)));
+    }
+
+    /**
+     * Add a word to the filter.
+     * @param word The word to add.
+     */
+    public void add(CharSequence word) {
+        setBits(hash(word, CaseFolding.EXACT));
+    }
+
+    /**
+     * Add a word stored as UTF-8, without decoding it.
+     * @param words The buffer holding the word.
+     * @param start Index of the first byte of the word.
+     * @param end Index after the last byte of the word.
+     */
+    public void add(ByteBuffer words, int start, int end) {
+        long h = FNV_OFFSET_BASIS;
+        for(int i = start; i < end; i++) {
+            h = (h ^ (words.get(i) & 0xff)) * FNV_PRIME;
+        }
+        setBits(mix(h));
+    }
+
+    private void setBits(long h) {
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32);
+        for(int i = 0; i < noOfHashes; i++) {
+            long bit = ((h1 + (long) i * h2) & Long.MAX_VALUE) % bitCount;
+            bits[(int) (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    /**
+     * Checks whether the word, with its letters folded, might have been added to the filter.
+     * @param word The word to check.
+     * @param folding How to treat the letters of the word.
+     * @return false if the word was definitely not added, true if it may have been.
+     */
+    public boolean mightContain(CharSequence word, CaseFolding folding) {
+        long h = hash(word, folding);
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32);
+        for(int i = 0; i < noOfHashes; i++) {
+            long bit = ((h1 + (long) i * h2) & Long.MAX_VALUE) % bitCount;
+            if((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Number of bytes used by the filter's bits.
+     * @return size in bytes.
+     */
+    public long getMemoryFootprint() {
+        return bits.length * 8L;
+    }
+
+    // 64 bit FNV-1a over the UTF-8 bytes of the folded word, encoded as it goes, with a final mix so
+    // both halves are usable.
+    private static long hash(CharSequence word, CaseFolding folding) {
+        long h = FNV_OFFSET_BASIS;
+        int length = word.length();
+        for(int i = 0; i < length; i++) {
+            char c = folding.fold(word.charAt(i));
+            if(c < 0x80) {
+                h = (h ^ c) * FNV_PRIME;
+            } else if(c < 0x800) {
+                h = (h ^ (0xc0 | c >>> 6)) * FNV_PRIME;
+                h = (h ^ (0x80 | c & 0x3f)) * FNV_PRIME;
+            } else if(Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(word.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, word.charAt(++i));
+                h = (h ^ (0xf0 | codePoint >>> 18)) * FNV_PRIME;
+                h = (h ^ (0x80 | codePoint >>> 12 & 0x3f)) * FNV_PRIME;
+                h = (h ^ (0x80 | codePoint >>> 6 & 0x3f)) * FNV_PRIME;
+                h = (h ^ (0x80 | codePoint & 0x3f)) * FNV_PRIME;
+            } else {
+                h = (h ^ (0xe0 | c >>> 12)) * FNV_PRIME;
+                h = (h ^ (0x80 | c >>> 6 & 0x3f)) * FNV_PRIME;
+                h = (h ^ (0x80 | c & 0x3f)) * FNV_PRIME;
+            }
+        }
+        return mix(h);
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h;
+    }
+}
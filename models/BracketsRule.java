@@ -0,0 +1,19 @@
+package models;
+
+/**
+ * @author agent
+ * Created on 17/10/2026
+ *
+ * Counts brackets, so an extra or missing one can be flagged.
+ */
+public final class BracketsRule implements PairRule {
+    @Override
+    public ReasonCode getReasonCode() {
+        return ReasonCode.BRACKETS_ODD;
+    }
+
+    @Override
+    public boolean isPairedMark(Token token) {
+        return token.getType() == TokenType.BRACKET;
+    }
+}
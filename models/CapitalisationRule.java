@@ -0,0 +1,20 @@
+package models;
+
+/**
+ * @author agent
+ * Created on 17/10/2026
+ *
+ * Flags the first word of a sentence, or of a line, which does not start with a capital.
+ */
+public final class CapitalisationRule implements WordRule {
+    @Override
+    public ReasonCode getReasonCode() {
+        return ReasonCode.NOT_CAPITAL;
+    }
+
+    @Override
+    public boolean isFlagged(Token previousWord, Token currentWord) {
+        return (previousWord.getType() == TokenType.SENTENCE_END || previousWord.getType() == TokenType.EMPTY)
+                && !CaseFolding.startsWithCapital(currentWord);
+    }
+}
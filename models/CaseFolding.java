@@ -0,0 +1,42 @@
+package models;
+
+/**
+ * @author agent
+ * Created on 17/10/2026
+ *
+ * How the letters of a word are treated when it is looked up. Folding is done a char at a time,
+ * so looking up the lower case form of a word never creates a new String. Unlike
+ * String.toLowerCase this does not depend on the default locale.
+ */
+public enum CaseFolding {
+    EXACT {
+        @Override
+        public char fold(char c) {
+            return c;
+        }
+    },
+    LOWER_CASE {
+        @Override
+        public char fold(char c) {
+            return Character.toLowerCase(c);
+        }
+    };
+
+    /**
+     * Apply the folding to a single char.
+     * @param c The char as it appears in the text.
+     * @return the char to compare against the dictionary.
+     */
+    public abstract char fold(char c);
+
+    /**
+     * Checks whether the first letter of the word is a capital, as expected at the start of a sentence.
+     * Anything which is not a lower case letter counts, e.g. digits.
+     * @param word The word to check, must not be empty.
+     * @return whether or not the word starts with a capital.
+     */
+    public static boolean startsWithCapital(CharSequence word) {
+        char firstLetter = word.charAt(0);
+        return Character.toUpperCase(firstLetter) == firstLetter && !Character.isLowerCase(firstLetter);
+    }
+}
@@ -0,0 +1,205 @@
+package models;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * @author agent
+ * Created on 17/10/2026
+ *
+ * The lines of a chapter, which never change once made. Changing lines gives a new ChapterText that
+ * shares everything but the path down to the changed lines with the old one, so every version of a
+ * chapter can be kept for undo and redo at the cost of the changes alone.
+ *
+ * The lines are kept in a tree of fixed shape, leaves of up to 32 lines with up to 32 children to a
+ * node. Changing a line copies one node per level, and comparing two versions of a chapter skips the
+ * parts of the tree they share. The text of the whole chapter is never put together, the lines are
+ * read one at a time as they are shown.
+ */
+public final class ChapterText {
+    private static final int BRANCHING = 32;
+
+    private final Node root;
+    private final int lineCount;
+
+    /**
+     * Class constructor.
+     * @param lines The lines of the chapter. They are copied.
+     */
+    public ChapterText(String[] lines) {
+        this(build(lines), lines.length);
+    }
+
+    private ChapterText(Node root, int lineCount) {
+        this.root = root;
+        this.lineCount = lineCount;
+    }
+
+    /**
+     * Number of lines in the chapter.
+     * @return line count.
+     */
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    /**
+     * Returns one line of the chapter.
+     * @param lineNo The line number, zero based.
+     * @return the line.
+     */
+    public String getLine(int lineNo) {
+        checkLineNo(lineNo);
+        Node node = root;
+        int index = lineNo;
+        while(node.lines == null) {
+            int child = index / node.childLineCount;
+            index -= child * node.childLineCount;
+            node = node.children[child];
+        }
+        return node.lines[index];
+    }
+
+    /**
+     * Returns the chapter with some of its lines changed, leaving this one as it is.
+     * @param lineNos The line numbers of the lines to change, in order.
+     * @param lines The new lines, one for each line number.
+     * @return the changed chapter.
+     */
+    public ChapterText withLines(int[] lineNos, String[] lines) {
+        if(lineNos.length != lines.length) {
+            throw new IllegalArgumentException(lineNos.length + " line numbers given for " + lines.length + " lines");
+        }
+        if(lineNos.length == 0) {
+            return this;
+        }
+        for(int i = 0; i < lineNos.length; i++) {
+            checkLineNo(lineNos[i]);
+            if(i > 0 && lineNos[i] <= lineNos[i - 1]) {
+                throw new IllegalArgumentException("Line numbers are not in order: " + Arrays.toString(lineNos));
+            }
+        }
+        return new ChapterText(replace(root, 0, lineNos, lines, 0, lineNos.length), lineCount);
+    }
+
+    /**
+     * Returns the lines which are different in another version of the chapter.
+     * @param other The other version, with the same number of lines.
+     * @return the line numbers of the lines which differ, in order.
+     */
+    public int[] getChangedLines(ChapterText other) {
+        if(other.lineCount != lineCount) {
+            throw new IllegalArgumentException("Chapters of " + lineCount + " and " + other.lineCount + " lines");
+        }
+        IntStream.Builder changed = IntStream.builder();
+        compare(root, other.root, 0, changed);
+        return changed.build().toArray();
+    }
+
+    /**
+     * Returns the lines of the chapter.
+     * @return a new array of the lines.
+     */
+    public String[] toArray() {
+        String[] lines = new String[lineCount];
+        copyTo(root, lines, 0);
+        return lines;
+    }
+
+    private void checkLineNo(int lineNo) {
+        if(lineNo < 0 || lineNo >= lineCount) {
+            throw new IndexOutOfBoundsException("Line " + lineNo + " of " + lineCount);
+        }
+    }
+
+    // Replacing the lines lineNos[from] to lineNos[to - 1], which are all under the node.
+    private static Node replace(Node node, int firstLineNo, int[] lineNos, String[] lines, int from, int to) {
+        if(node.lines != null) {
+            String[] newLines = node.lines.clone();
+            for(int i = from; i < to; i++) {
+                newLines[lineNos[i] - firstLineNo] = lines[i];
+            }
+            return new Node(newLines);
+        }
+        Node[] newChildren = node.children.clone();
+        for(int i = from; i < to; ) {
+            int child = (lineNos[i] - firstLineNo) / node.childLineCount;
+            int childFirstLineNo = firstLineNo + child * node.childLineCount;
+            int end = i;
+            while(end < to && lineNos[end] < childFirstLineNo + node.childLineCount) {
+                end++;
+            }
+            newChildren[child] = replace(node.children[child], childFirstLineNo, lineNos, lines, i, end);
+            i = end;
+        }
+        return new Node(newChildren, node.childLineCount);
+    }
+
+    private static void compare(Node node, Node other, int firstLineNo, IntStream.Builder changed) {
+        if(node == other) {
+            return;
+        }
+        if(node.lines != null) {
+            for(int i = 0; i < node.lines.length; i++) {
+                if(!node.lines[i].equals(other.lines[i])) {
+                    changed.add(firstLineNo + i);
+                }
+            }
+        } else {
+            for(int i = 0; i < node.children.length; i++) {
+                compare(node.children[i], other.children[i], firstLineNo + i * node.childLineCount, changed);
+            }
+        }
+    }
+
+    private static Node build(String[] lines) {
+        // The leaves, then each level above them until there is one node left.
+        Node[] level = new Node[Math.max((lines.length + BRANCHING - 1) / BRANCHING, 1)];
+        for(int i = 0; i < level.length; i++) {
+            level[i] = new Node(Arrays.copyOfRange(lines, i * BRANCHING, Math.min((i + 1) * BRANCHING, lines.length)));
+        }
+        int childLineCount = BRANCHING;
+        while(level.length > 1) {
+            Node[] parents = new Node[(level.length + BRANCHING - 1) / BRANCHING];
+            for(int i = 0; i < parents.length; i++) {
+                parents[i] = new Node(Arrays.copyOfRange(level, i * BRANCHING, Math.min((i + 1) * BRANCHING, level.length)),
+                        childLineCount);
+            }
+            level = parents;
+            childLineCount *= BRANCHING;
+        }
+        return level[0];
+    }
+
+    private static int copyTo(Node node, String[] lines, int index) {
+        if(node.lines != null) {
+            System.arraycopy(node.lines, 0, lines, index, node.lines.length);
+            return index + node.lines.length;
+        }
+        for(Node child : node.children) {
+            index = copyTo(child, lines, index);
+        }
+        return index;
+    }
+
+    /**
+     * A node of the tree, either a leaf of lines or a node of children. Every child but the last is full.
+     */
+    private static final class Node {
+        private final String[] lines;
+        private final Node[] children;
+        private final int childLineCount;   // Lines under each full child
+
+        Node(String[] lines) {
+            this.lines = lines;
+            this.children = null;
+            this.childLineCount = 1;
+        }
+
+        Node(Node[] children, int childLineCount) {
+            this.lines = null;
+            this.children = children;
+            this.childLineCount = childLineCount;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package models;
+
+/**
+ * @author agent
+ * Created on 17/10/2026
+ *
+ * A check performed on every token of a chapter. Rules are either a WordRule, which flags single
+ * words, or a PairRule, which counts marks that must come in pairs. All the rules of a RuleSet are
+ * run together in one pass over the tokens.
+ */
+public interface CheckRule {
+    /**
+     * Returns the reason given for the exceptions this rule finds.
+     * @return the reason code.
+     */
+    ReasonCode getReasonCode();
+}
@@ -0,0 +1,276 @@
+package models;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * @author agent
+ * Created on 17/10/2026
+ *
+ * An immutable dictionary which stores all of its words in one sorted, packed UTF-8 byte array.
+ * Word i is found between offsets[i] and offsets[i + 1]. Lookups go through an open-addressing
+ * hash table of word indexes, so no String objects are kept per word. For the English(GB)
+ * dictionary this takes around a fifth of the memory a HashSet of Strings does.
+ *
+ * The arrays are held as buffers so that they can either live on the heap or be memory-mapped
+ * straight from a compiled dictionary file, see DictionaryCompiler.
+ */
+public final class CompactDictionary implements Dictionary {
+    private static final int INDEX_BITS = 24;
+    private static final int INDEX_MASK = (1 << INDEX_BITS) - 1;
+
+    private final ByteBuffer words;     // All the words, UTF-8 encoded, back to back.
+    private final IntBuffer offsets;    // Start of each word in words, plus the end of the last word.
+    private final IntBuffer slots;      // Hash table of hash fingerprint and word index + 1, 0 meaning an empty slot.
+    private final int mask;
+
+    private CompactDictionary(ByteBuffer words, IntBuffer offsets, IntBuffer slots) {
+        this.words = words;
+        this.offsets = offsets;
+        this.slots = slots;
+        this.mask = slots.capacity() - 1;
+    }
+
+    /**
+     * Build a dictionary from a list of words. Duplicate words are only stored once.
+     * @param wordList The words to be stored in the dictionary.
+     * @return the dictionary.
+     */
+    public static CompactDictionary of(Collection<String> wordList) {
+        String[] sorted = wordList.toArray(new String[wordList.size()]);
+        Arrays.sort(sorted);
+
+        // Removing duplicates, which are next to each other now the words are sorted.
+        int noOfWords = 0;
+        for(int i = 0; i < sorted.length; i++) {
+            if(i == 0 || !sorted[i].equals(sorted[i - 1])) {
+                sorted[noOfWords++] = sorted[i];
+            }
+        }
+        if(noOfWords >= INDEX_MASK) {
+            throw new IllegalArgumentException("Too many words for a compact dictionary: " + noOfWords);
+        }
+
+        byte[][] encoded = new byte[noOfWords][];
+        int totalLength = 0;
+        for(int i = 0; i < noOfWords; i++) {
+            encoded[i] = sorted[i].getBytes(StandardCharsets.UTF_8);
+            totalLength += encoded[i].length;
+        }
+
+        byte[] words = new byte[totalLength];
+        int[] offsets = new int[noOfWords + 1];
+        int position = 0;
+        for(int i = 0; i < noOfWords; i++) {
+            offsets[i] = position;
+            System.arraycopy(encoded[i], 0, words, position, encoded[i].length);
+            position += encoded[i].length;
+        }
+        offsets[noOfWords] = position;
+
+        // Table is kept at most half full, so probe sequences stay short.
+        int[] slots = new int[tableSizeFor(noOfWords * 2)];
+        int mask = slots.length - 1;
+        for(int i = 0; i < noOfWords; i++) {
+            int h = hash(sorted[i], CaseFolding.EXACT);
+            int slot = h & mask;
+            while(slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = fingerprint(h) | (i + 1);
+        }
+
+        return new CompactDictionary(ByteBuffer.wrap(words), IntBuffer.wrap(offsets), IntBuffer.wrap(slots));
+    }
+
+    /**
+     * Read a dictionary previously written by writeTo. The dictionary uses the buffer's
+     * contents directly rather than copying them, so a mapped buffer stays mapped.
+     * @param buffer Buffer positioned at the start of the dictionary data.
+     * @return the dictionary.
+     * @throws IOException if the data is not a valid dictionary.
+     */
+    static CompactDictionary read(ByteBuffer buffer) throws IOException {
+        int noOfWords = buffer.getInt();
+        int noOfSlots = buffer.getInt();
+        int noOfBytes = buffer.getInt();
+        if(noOfWords < 0 || noOfWords >= INDEX_MASK || Integer.bitCount(noOfSlots) != 1 || noOfBytes < 0 ||
+                buffer.remaining() != 4L * (noOfWords + 1) + 4L * noOfSlots + noOfBytes) {
+            throw new IOException("Corrupt dictionary data.");
+        }
+
+        IntBuffer offsets = slice(buffer, 4 * (noOfWords + 1)).asIntBuffer();
+        IntBuffer slots = slice(buffer, 4 * noOfSlots).asIntBuffer();
+        ByteBuffer words = slice(buffer, noOfBytes);
+        return new CompactDictionary(words, offsets, slots);
+    }
+
+    /**
+     * Write the dictionary's arrays in the layout expected by read.
+     * @param out Stream to write to.
+     * @throws IOException if writing fails.
+     */
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(size());
+        out.writeInt(slots.capacity());
+        out.writeInt(words.capacity());
+        for(int i = 0; i < offsets.capacity(); i++) {
+            out.writeInt(offsets.get(i));
+        }
+        for(int i = 0; i < slots.capacity(); i++) {
+            out.writeInt(slots.get(i));
+        }
+        for(int i = 0; i < words.capacity(); i++) {
+            out.writeByte(words.get(i));
+        }
+    }
+
+    @Override
+    public boolean contains(CharSequence word, CaseFolding folding) {
+        int h = hash(word, folding);
+        int fingerprint = fingerprint(h);
+        int slot = h & mask;
+        int entry;
+        while((entry = slots.get(slot)) != 0) {
+            // The fingerprint rules out most collisions without touching the word bytes.
+            if((entry & ~INDEX_MASK) == fingerprint && matches((entry & INDEX_MASK) - 1, word, folding)) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    @Override
+    public int size() {
+        return offsets.capacity() - 1;
+    }
+
+    /**
+     * Returns the word stored at the index. Words are stored in sorted order.
+     * @param index Zero based index of the word.
+     * @return the word.
+     */
+    @Override
+    public String wordAt(int index) {
+        byte[] word = new byte[offsets.get(index + 1) - offsets.get(index)];
+        ByteBuffer view = words.duplicate();
+        view.position(offsets.get(index));
+        view.get(word);
+        return new String(word, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Add every word to a Bloom filter straight from the stored UTF-8 bytes, without creating a String
+     * for each word.
+     * @param filter The filter to add the words to.
+     */
+    @Override
+    public void addTo(BloomFilter filter) {
+        for(int i = 0; i < size(); i++) {
+            filter.add(words, offsets.get(i), offsets.get(i + 1));
+        }
+    }
+
+    /**
+     * Approximate number of bytes used by the dictionary's arrays, whether on the heap or mapped.
+     * @return size in bytes.
+     */
+    public long getMemoryFootprint() {
+        return words.capacity() + 4L * offsets.capacity() + 4L * slots.capacity();
+    }
+
+    /**
+     * Compares the stored UTF-8 word against the folded chars of the word being looked up,
+     * decoding as it goes rather than creating a String.
+     */
+    private boolean matches(int index, CharSequence word, CaseFolding folding) {
+        int position = offsets.get(index);
+        int end = offsets.get(index + 1);
+        int length = word.length();
+
+        // A UTF-8 word never has fewer bytes than its UTF-16 form has chars.
+        if(end - position < length) {
+            return false;
+        }
+
+        int i = 0;
+        while(position < end) {
+            if(i == length) {
+                return false;
+            }
+            int b = words.get(position) & 0xff;
+            if(b < 0x80) {
+                if(folding.fold(word.charAt(i++)) != b) {
+                    return false;
+                }
+                position++;
+                continue;
+            }
+
+            int codePoint;
+            int continuationBytes;
+            if(b >= 0xf0) {
+                codePoint = b & 0x07;
+                continuationBytes = 3;
+            } else if(b >= 0xe0) {
+                codePoint = b & 0x0f;
+                continuationBytes = 2;
+            } else {
+                codePoint = b & 0x1f;
+                continuationBytes = 1;
+            }
+            for(int k = 1; k <= continuationBytes; k++) {
+                codePoint = (codePoint << 6) | (words.get(position + k) & 0x3f);
+            }
+            position += continuationBytes + 1;
+
+            if(codePoint >= Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+                if(i + 1 >= length || word.charAt(i) != Character.highSurrogate(codePoint) ||
+                        word.charAt(i + 1) != Character.lowSurrogate(codePoint)) {
+                    return false;
+                }
+                i += 2;
+            } else if(folding.fold(word.charAt(i++)) != codePoint) {
+                return false;
+            }
+        }
+        return i == length;
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int length) {
+        ByteBuffer view = buffer.duplicate();
+        view.limit(view.position() + length);
+        buffer.position(buffer.position() + length);
+        return view.slice();
+    }
+
+    private static int hash(CharSequence word, CaseFolding folding) {
+        int h = 0;
+        for(int i = 0; i < word.length(); i++) {
+            h = 31 * h + folding.fold(word.charAt(i));
+        }
+        // Spreading the bits, as the table index only uses the low bits.
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        return h;
+    }
+
+    private static int fingerprint(int hash) {
+        return hash & ~INDEX_MASK;
+    }
+
+    private static int tableSizeFor(int capacity) {
+        int size = 1;
+        while(size < capacity) {
+            size <<= 1;
+        }
+        return size;
+    }
+}
@@ -0,0 +1,257 @@
+package models;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * @author agent
+ * Created on 17/10/2026
+ *
+ * A batch of corrections, each replacing every occurrence of a word with another, applied to a line
+ * in a single scan whatever the number of corrections. The words are found with an Aho-Corasick
+ * automaton and are matched literally, so they may contain any characters, and only as whole words,
+ * i.e. not preceded or followed by a letter, digit or _. A space in a word matches any whitespace
+ * character, so duplicated words can be corrected whatever separates them.
+ *
+ * Where the words of corrections overlap, the one starting first is applied, or the longest of those
+ * starting at the same place. A word replaced with nothing is deleted with one of the spaces around it.
+ *
+ * Corrections are not thread-safe, each thread should use its own.
+ *
+ * Usage:
+ *     corrections.add("recieve", "receive");
+ *     corrections.add("the the", "the");
+ *     String correctedLine = corrections.apply(line);
+ */
+public final class Corrections {
+    private final Map<String, String> replacements = new LinkedHashMap<>();
+    private boolean removeExtraBlanks;
+
+    // The automaton, built when the corrections are first applied.
+    private String[] words;
+    private String[] replacementsByWord;
+    private char[][] edgeChars;     // Characters leading out of each state, in order
+    private int[][] edgeTargets;
+    private int[] failures;         // Longest proper suffix of each state which is also a state
+    private int[] matches;          // Word ending at each state, or -1
+    private int[] nextMatches;      // Nearest state down the failure links with a word ending, or -1
+    private int[] longestMatches = new int[64];    // Length of the word to replace at each position of the line
+    private int[] longestWords = new int[64];
+
+    /**
+     * Add a correction, replacing any earlier correction of the same word.
+     * @param word The word to replace, which must not be blank.
+     * @param replacement The word to replace it with, or "" to delete it.
+     */
+    public void add(String word, String replacement) {
+        if(word.trim().isEmpty()) {
+            // A blank word would match every space between two non-word characters.
+            throw new IllegalArgumentException("The word to replace is blank");
+        }
+        replacements.put(fold(word), replacement);
+        words = null;
+    }
+
+    /**
+     * Also replace runs of spaces and tabs with one space, after the words have been replaced.
+     */
+    public void removeExtraBlanks() {
+        removeExtraBlanks = true;
+    }
+
+    /**
+     * Whether there is nothing to correct.
+     * @return true if no corrections have been added and extra blanks are not removed.
+     */
+    public boolean isEmpty() {
+        return replacements.isEmpty() && !removeExtraBlanks;
+    }
+
+    /**
+     * Remove every correction.
+     */
+    public void clear() {
+        replacements.clear();
+        removeExtraBlanks = false;
+        words = null;
+    }
+
+    /**
+     * Apply the corrections to a line.
+     * @param line The line to correct.
+     * @return the corrected line, or the same line if nothing was corrected.
+     */
+    public String apply(String line) {
+        String corrected = replacements.isEmpty() ? line : replaceWords(line);
+        return removeExtraBlanks ? removeExtraBlanks(corrected) : corrected;
+    }
+
+    private String replaceWords(String line) {
+        if(words == null) {
+            build();
+        }
+        int length = line.length();
+        if(longestMatches.length < length) {
+            longestMatches = new int[Math.max(length, longestMatches.length * 2)];
+            longestWords = new int[longestMatches.length];
+        }
+        Arrays.fill(longestMatches, 0, length, 0);
+
+        // Finding the longest whole word match starting at each position.
+        boolean found = false;
+        int state = 0;
+        for(int i = 0; i < length; i++) {
+            state = step(state, fold(line.charAt(i)));
+            for(int match = matches[state] >= 0 ? state : nextMatches[state]; match >= 0; match = nextMatches[match]) {
+                int wordLength = words[matches[match]].length();
+                int start = i + 1 - wordLength;
+                if(isBoundary(line, start - 1) && isBoundary(line, i + 1) && wordLength > longestMatches[start]) {
+                    longestMatches[start] = wordLength;
+                    longestWords[start] = matches[match];
+                    found = true;
+                }
+            }
+        }
+        if(!found) {
+            return line;
+        }
+
+        StringBuilder corrected = new StringBuilder(length);
+        for(int i = 0; i < length; ) {
+            if(longestMatches[i] == 0) {
+                corrected.append(line.charAt(i++));
+                continue;
+            }
+            String replacement = replacementsByWord[longestWords[i]];
+            i += longestMatches[i];
+            if(!replacement.isEmpty()) {
+                corrected.append(replacement);
+            } else if(i < length && Character.isWhitespace(line.charAt(i))) {
+                i++;
+            } else if(corrected.length() > 0 && Character.isWhitespace(corrected.charAt(corrected.length() - 1))) {
+                corrected.setLength(corrected.length() - 1);
+            }
+        }
+        return corrected.toString();
+    }
+
+    private int step(int state, char c) {
+        int next;
+        while((next = edge(state, c)) < 0 && state != 0) {
+            state = failures[state];
+        }
+        return next < 0 ? 0 : next;
+    }
+
+    private int edge(int state, char c) {
+        int i = Arrays.binarySearch(edgeChars[state], c);
+        return i < 0 ? -1 : edgeTargets[state][i];
+    }
+
+    private void build() {
+        words = replacements.keySet().toArray(new String[replacements.size()]);
+        replacementsByWord = replacements.values().toArray(new String[replacements.size()]);
+
+        // The trie of the words.
+        List<TreeMap<Character, Integer>> trie = new ArrayList<>();
+        List<Integer> trieMatches = new ArrayList<>();
+        trie.add(new TreeMap<>());
+        trieMatches.add(-1);
+        for(int w = 0; w < words.length; w++) {
+            int state = 0;
+            for(char c : words[w].toCharArray()) {
+                Integer next = trie.get(state).get(c);
+                if(next == null) {
+                    next = trie.size();
+                    trie.get(state).put(c, next);
+                    trie.add(new TreeMap<>());
+                    trieMatches.add(-1);
+                }
+                state = next;
+            }
+            trieMatches.set(state, w);
+        }
+
+        int states = trie.size();
+        edgeChars = new char[states][];
+        edgeTargets = new int[states][];
+        matches = new int[states];
+        for(int s = 0; s < states; s++) {
+            edgeChars[s] = new char[trie.get(s).size()];
+            edgeTargets[s] = new int[trie.get(s).size()];
+            int i = 0;
+            for(Map.Entry<Character, Integer> edge : trie.get(s).entrySet()) {
+                edgeChars[s][i] = edge.getKey();
+                edgeTargets[s][i++] = edge.getValue();
+            }
+            matches[s] = trieMatches.get(s);
+        }
+
+        // The failure links, breadth first so a state's are known before its children's.
+        failures = new int[states];
+        nextMatches = new int[states];
+        nextMatches[0] = -1;
+        int[] queue = new int[states];
+        int head = 0;
+        int tail = 0;
+        for(int child : edgeTargets[0]) {
+            nextMatches[child] = -1;
+            queue[tail++] = child;
+        }
+        while(head < tail) {
+            int state = queue[head++];
+            for(int i = 0; i < edgeChars[state].length; i++) {
+                int child = edgeTargets[state][i];
+                int failure = failures[state];
+                int target;
+                while((target = edge(failure, edgeChars[state][i])) < 0 && failure != 0) {
+                    failure = failures[failure];
+                }
+                failures[child] = target < 0 ? 0 : target;
+                nextMatches[child] = matches[failures[child]] >= 0 ? failures[child] : nextMatches[failures[child]];
+                queue[tail++] = child;
+            }
+        }
+    }
+
+    private static boolean isBoundary(String line, int position) {
+        if(position < 0 || position >= line.length()) {
+            return true;
+        }
+        char c = line.charAt(position);
+        return !Character.isLetterOrDigit(c) && c != '_';
+    }
+
+    private static char fold(char c) {
+        return Character.isWhitespace(c) ? ' ' : c;
+    }
+
+    private static String fold(String word) {
+        StringBuilder folded = new StringBuilder(word.length());
+        for(int i = 0; i < word.length(); i++) {
+            folded.append(fold(word.charAt(i)));
+        }
+        return folded.toString();
+    }
+
+    private static String removeExtraBlanks(String line) {
+        StringBuilder collapsed = null;
+        for(int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            boolean blank = c == ' ' || c == '\t';
+            boolean extra = blank && i > 0 && (line.charAt(i - 1) == ' ' || line.charAt(i - 1) == '\t');
+            if(collapsed == null && (extra || c == '\t')) {
+                collapsed = new StringBuilder(line.length());
+                collapsed.append(line, 0, i);
+            }
+            if(collapsed != null && !extra) {
+                collapsed.append(blank ? ' ' : c);
+            }
+        }
+        return collapsed == null ? line : collapsed.toString();
+    }
+}
@@ -0,0 +1,49 @@
+package models;
+
+/**
+ * @author agent
+ * Created on 17/10/2026
+ *
+ * A read-only list of correctly spelled words which the chapter is spellchecked against.
+ */
+public interface Dictionary {
+    /**
+     * Checks whether the word is in the dictionary. The comparison is case sensitive.
+     * @param word The word to look up.
+     * @return whether or not the word was found.
+     */
+    default boolean contains(CharSequence word) {
+        return contains(word, CaseFolding.EXACT);
+    }
+
+    /**
+     * Checks whether the word, with its letters folded, is in the dictionary.
+     * @param word The word to look up.
+     * @param folding How to treat the letters of the word, e.g. look up its lower case form.
+     * @return whether or not the word was found.
+     */
+    boolean contains(CharSequence word, CaseFolding folding);
+
+    /**
+     * Returns the number of words in the dictionary.
+     * @return number of words.
+     */
+    int size();
+
+    /**
+     * Returns the word stored at the index, used to go through every word in the dictionary.
+     * @param index Zero based index of the word, less than size().
+     * @return the word.
+     */
+    String wordAt(int index);
+
+    /**
+     * Add every word in the dictionary to a Bloom filter.
+     * @param filter The filter to add the words to.
+     */
+    default void addTo(BloomFilter filter) {
+        for(int i = 0; i < size(); i++) {
+            filter.add(wordAt(i));
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package models;
+
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * @author agent
+ * Created on 17/10/2026
+ *
+ * Compiles a CSV generic dictionary (a title line, then one word per line in the first column)
+ * into a binary file which can be memory-mapped, so loading the dictionary does not involve
+ * parsing anything. Every JVM mapping the same file shares the operating system's copy of its pages.
+ *
+ * Each version of a CSV dictionary is compiled to a file of its own, named after its checksum, so a
+ * newer version never replaces a file which is still mapped. Windows does not allow that.
+ *
+ * File layout, big-endian:
+ * int      magic number
+ * int      format version
+ * long     CRC32 of the CSV file it was compiled from
+ * long     length of the CSV file it was compiled from
+ * ...      dictionary data, as written by CompactDictionary.writeTo
+ */
+public final class DictionaryCompiler {
+    private static final int MAGIC = 0x53504443;     // "SPDC"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_LENGTH = 24;
+    private static final String COMPILED_PREFIX = "Dictionary-";
+    private static final String COMPILED_EXTENSION = ".bin";
+
+    private DictionaryCompiler() {
+    }
+
+    /**
+     * Returns the compiled file of the CSV dictionary as it is now, compiling it first if needed.
+     * The CSV file is only checksummed once, which is most of the time taken when it is up to date.
+     * The compiled files of other versions of the dictionary in the same folder are deleted, unless
+     * they are still mapped, in which case they are left for a later call.
+     * @param source The CSV dictionary file.
+     * @return the compiled dictionary file, to be loaded.
+     * @throws IOException if either file cannot be read or written.
+     */
+    public static File getCompiledFile(File source) throws IOException {
+        File folder = source.getAbsoluteFile().getParentFile();
+        long sourceChecksum = checksum(source);
+        File binary = new File(folder, COMPILED_PREFIX + Long.toHexString(sourceChecksum) + COMPILED_EXTENSION);
+        if(!isUpToDate(source, sourceChecksum, binary)) {
+            compile(source, sourceChecksum, binary);
+        }
+
+        File[] compiledFiles = folder.listFiles((dir, name) ->
+                name.startsWith(COMPILED_PREFIX) && name.endsWith(COMPILED_EXTENSION));
+        if(compiledFiles != null) {
+            for(File compiledFile : compiledFiles) {
+                if(!compiledFile.equals(binary)) {
+                    // Fails while the file is mapped on Windows; it is tried again next time.
+                    compiledFile.delete();
+                }
+            }
+        }
+        return binary;
+    }
+
+    /**
+     * Checks whether the binary file exists, is of the current format version and was
+     * compiled from the source file as it is now.
+     * @param source The CSV dictionary file.
+     * @param sourceChecksum The checksum of the source file as it is now.
+     * @param binary The compiled dictionary file.
+     * @return whether or not the binary file can be used in place of the source.
+     * @throws IOException if the binary file cannot be read.
+     */
+    public static boolean isUpToDate(File source, long sourceChecksum, File binary) throws IOException {
+        if(!binary.isFile() || binary.length() < HEADER_LENGTH) {
+            return false;
+        }
+
+        try(DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(binary)))) {
+            return in.readInt() == MAGIC &&
+                    in.readInt() == FORMAT_VERSION &&
+                    in.readLong() == sourceChecksum &&
+                    in.readLong() == source.length();
+        }
+    }
+
+    /**
+     * Compile the CSV dictionary into the binary format. The binary file is written to a
+     * temporary file first and then moved into place, so a half-written file is never mapped.
+     * @param source The CSV dictionary file.
+     * @param sourceChecksum The checksum of the source file, recorded in the binary file.
+     * @param binary The compiled dictionary file to be created or replaced.
+     * @throws IOException if either file cannot be read or written.
+     */
+    public static void compile(File source, long sourceChecksum, File binary) throws IOException {
+        List<String> words = new ArrayList<>();
+        String currentLine;
+        try(BufferedReader br = new BufferedReader(new FileReader(source))) {
+            br.readLine();      // Title Line
+            while((currentLine = br.readLine()) != null) {
+                words.add(currentLine.split(",")[0]);
+            }
+        }
+
+        CompactDictionary dictionary = CompactDictionary.of(words);
+
+        File tempFile = new File(binary.getPath() + ".tmp");
+        try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(sourceChecksum);
+            out.writeLong(source.length());
+            dictionary.writeTo(out);
+        }
+        Files.move(tempFile.toPath(), binary.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Memory-map a compiled dictionary file. The file must not be modified while the dictionary is in use.
+     * @param binary The compiled dictionary file.
+     * @return the dictionary, backed by the mapped file.
+     * @throws IOException if the file cannot be mapped or is not a compiled dictionary of the current version.
+     */
+    public static CompactDictionary load(File binary) throws IOException {
+        MappedByteBuffer buffer;
+        try(FileChannel channel = FileChannel.open(binary.toPath(), StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed.
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        if(buffer.remaining() < HEADER_LENGTH || buffer.getInt() != MAGIC) {
+            throw new IOException("Not a compiled dictionary file: " + binary.getAbsolutePath());
+        }
+        int version = buffer.getInt();
+        if(version != FORMAT_VERSION) {
+            throw new IOException("Compiled dictionary version " + version + " is not supported, expected " +
+                    FORMAT_VERSION + ": " + binary.getAbsolutePath());
+        }
+        buffer.getLong();   // Source checksum, only used by isUpToDate
+        buffer.getLong();   // Source length
+
+        return CompactDictionary.read(buffer);
+    }
+
+    /**
+     * Returns the CRC32 of a file, which the compiled file records to tell whether it is up to date.
+     * @param file The file to checksum.
+     * @return the checksum.
+     * @throws IOException if the file cannot be read.
+     */
+    public static long checksum(File file) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[64 * 1024];
+        int read;
+        try(InputStream in = new FileInputStream(file)) {
+            while((read = in.read(buffer)) != -1) {
+                crc.update(buffer, 0, read);
+            }
+        }
+        return crc.getValue();
+    }
+}
@@ -0,0 +1,111 @@
+package models;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author agent
+ * Created on 17/10/2026
+ *
+ * Looks words up in both the generic and the project dictionary. A Bloom filter built over the
+ * words of both answers most misspelled words straight away; the dictionaries themselves are
+ * only consulted when the filter says the word might be there.
+ *
+ * Words can be looked up as any CharSequence and in their lower case form, so checking a
+ * token never needs a new String.
+ */
+public final class DictionaryLookup {
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    private final Dictionary genDic;
+    private final WordSet bookDic;
+    private final BloomFilter filter;
+
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder definiteMisses = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+
+    /**
+     * Class constructor. Builds the filter from every word currently in the two dictionaries.
+     * @param genDic The generic dictionary.
+     * @param bookDicWords The words of the project dictionary. Words added later must be passed to addProjectWord.
+     */
+    public DictionaryLookup(Dictionary genDic, Collection<String> bookDicWords) {
+        this.genDic = genDic;
+        this.bookDic = new WordSet(bookDicWords);
+
+        // Leaving room for words added to the project dictionary during the session.
+        filter = new BloomFilter(genDic.size() + bookDic.size() + 1000, FALSE_POSITIVE_RATE);
+        genDic.addTo(filter);
+        bookDic.addTo(filter);
+    }
+
+    /**
+     * Checks whether the word is in either dictionary.
+     * @param word The word to look up.
+     * @param folding How to treat the letters of the word, e.g. look up its lower case form.
+     * @return whether or not the word was found.
+     */
+    public boolean contains(CharSequence word, CaseFolding folding) {
+        lookups.increment();
+        if(!filter.mightContain(word, folding)) {
+            definiteMisses.increment();
+            return false;
+        }
+
+        if(genDic.contains(word, folding) || bookDic.contains(word, folding)) {
+            return true;
+        }
+        falsePositives.increment();
+        return false;
+    }
+
+    /**
+     * Add a word which has just been added to the project dictionary.
+     * @param word The word added.
+     */
+    public void addProjectWord(String word) {
+        if(bookDic.add(word)) {
+            filter.add(word);
+        }
+    }
+
+    /**
+     * Number of lookups made so far.
+     * @return lookup count.
+     */
+    public long getLookupCount() {
+        return lookups.sum();
+    }
+
+    /**
+     * Number of lookups the filter answered on its own, without going to the dictionaries.
+     * @return definite miss count.
+     */
+    public long getDefiniteMissCount() {
+        return definiteMisses.sum();
+    }
+
+    /**
+     * Number of lookups where the filter said the word might be there but neither dictionary had it.
+     * @return false positive count.
+     */
+    public long getFalsePositiveCount() {
+        return falsePositives.sum();
+    }
+
+    /**
+     * Summary of the filter counters, e.g. for the error log or a status line.
+     * @return the filter statistics as text.
+     */
+    public String getStatistics() {
+        long total = getLookupCount();
+        long misses = getDefiniteMissCount();
+        long wrong = getFalsePositiveCount();
+        long filterHits = total - misses;
+        return String.format("Dictionary lookups: %d, answered by filter: %d (%.1f%%), " +
+                        "false positives: %d (%.2f%% of filter hits), filter size: %d bytes",
+                total, misses, total == 0 ? 0.0 : 100.0 * misses / total,
+                wrong, filterHits == 0 ? 0.0 : 100.0 * wrong / filterHits, filter.getMemoryFootprint());
+    }
+}
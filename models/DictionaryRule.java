@@ -0,0 +1,67 @@
+package models;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author agent
+ * Created on 17/10/2026
+ *
+ * Flags a word which cannot be found in either the General Dictionary nor the Project Specific
+ * Dictionary. After the end of a sentence or a quote the word may be capitalised, so it is only
+ * flagged if it is not found in its lower case form either.
+ *
+ * Words repeat a lot, so what the dictionaries said about a word is kept as the verdict of its token,
+ * and each distinct word of a range of lines is only looked up once in each form.
+ */
+public final class DictionaryRule implements WordRule {
+    private static final int EXACT_KNOWN = 1;
+    private static final int EXACT_FOUND = 2;
+    private static final int LOWER_CASE_KNOWN = 4;
+    private static final int LOWER_CASE_FOUND = 8;
+
+    private final DictionaryLookup dictionaries;
+    private final LongAdder memoHits = new LongAdder();
+    private final LongAdder memoMisses = new LongAdder();
+
+    /**
+     * Class constructor.
+     * @param dictionaries The dictionaries to look the words up in.
+     */
+    public DictionaryRule(DictionaryLookup dictionaries) {
+        this.dictionaries = dictionaries;
+    }
+
+    @Override
+    public ReasonCode getReasonCode() {
+        return ReasonCode.NOT_IN_DICT;
+    }
+
+    @Override
+    public boolean isFlagged(Token previousWord, Token currentWord) {
+        return !contains(currentWord, CaseFolding.EXACT, EXACT_KNOWN, EXACT_FOUND) &&
+                previousWord.getType() != TokenType.SENTENCE_END && previousWord.getType() != TokenType.QUOTE &&
+                !contains(currentWord, CaseFolding.LOWER_CASE, LOWER_CASE_KNOWN, LOWER_CASE_FOUND);
+    }
+
+    private boolean contains(Token word, CaseFolding folding, int knownBit, int foundBit) {
+        int verdict = word.getVerdict();
+        if((verdict & knownBit) != 0) {
+            memoHits.increment();
+            return (verdict & foundBit) != 0;
+        }
+        memoMisses.increment();
+        boolean found = dictionaries.contains(word, folding);
+        word.setVerdict(verdict | knownBit | (found ? foundBit : 0));
+        return found;
+    }
+
+    /**
+     * Summary of how many dictionary lookups were answered by the verdicts kept for words seen before.
+     * @return the verdict statistics as text.
+     */
+    public String getStatistics() {
+        long hits = memoHits.sum();
+        long total = hits + memoMisses.sum();
+        return String.format("Verdicts reused: %d of %d (%.1f%%)", hits, total, total == 0 ? 0.0 : 100.0 * hits / total);
+    }
+}
@@ -0,0 +1,19 @@
+package models;
+
+/**
+ * @author agent
+ * Created on 17/10/2026
+ *
+ * Flags a word which is the same as the one before it.
+ */
+public final class DuplicateWordRule implements WordRule {
+    @Override
+    public ReasonCode getReasonCode() {
+        return ReasonCode.DUPLICATE;
+    }
+
+    @Override
+    public boolean isFlagged(Token previousWord, Token currentWord) {
+        return currentWord.contentEquals(previousWord);
+    }
+}
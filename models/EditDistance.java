@@ -0,0 +1,115 @@
+package models;
+
+/**
+ * @author agent
+ * Created on 17/10/2026
+ *
+ * Damerau-Levenshtein distance, in its optimal string alignment form: the number of insertions,
+ * deletions, substitutions and transpositions of two adjacent letters needed to turn one word into
+ * another, where no part of the word is edited twice.
+ */
+public final class EditDistance {
+    private EditDistance() {
+    }
+
+    /**
+     * Calculate the distance between two words, giving up as soon as it is known to be over the maximum.
+     * @param a First word.
+     * @param b Second word.
+     * @param max Largest distance of interest.
+     * @return the distance, or max + 1 if the distance is larger than max.
+     */
+    public static int between(CharSequence a, CharSequence b, int max) {
+        int lengthA = a.length();
+        int lengthB = b.length();
+        if(Math.abs(lengthA - lengthB) > max) {
+            return max + 1;
+        }
+
+        int[] beforePrevious = new int[lengthB + 1];
+        int[] previous = new int[lengthB + 1];
+        int[] current = new int[lengthB + 1];
+        for(int j = 0; j <= lengthB; j++) {
+            previous[j] = j;
+        }
+
+        for(int i = 1; i <= lengthA; i++) {
+            current[0] = i;
+            int rowMinimum = i;
+            char charA = a.charAt(i - 1);
+            for(int j = 1; j <= lengthB; j++) {
+                char charB = b.charAt(j - 1);
+                int cost = charA == charB ? 0 : 1;
+                int distance = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if(i > 1 && j > 1 && charA == b.charAt(j - 2) && a.charAt(i - 2) == charB) {
+                    distance = Math.min(distance, beforePrevious[j - 2] + 1);
+                }
+                current[j] = distance;
+                rowMinimum = Math.min(rowMinimum, distance);
+            }
+            if(rowMinimum > max) {
+                return max + 1;
+            }
+
+            int[] recycled = beforePrevious;
+            beforePrevious = previous;
+            previous = current;
+            current = recycled;
+        }
+        return Math.min(previous[lengthB], max + 1);
+    }
+
+    /**
+     * Calculate the unrestricted Damerau-Levenshtein distance between two words, where letters may be
+     * edited again after being transposed, e.g. ca -> ac -> abc is 2 where the optimal string alignment
+     * distance is 3. Unlike that distance it obeys the triangle inequality, and it is never larger, so it
+     * can be used to arrange words in a BKTree searched for words within an optimal string alignment distance.
+     * @param a First word.
+     * @param b Second word.
+     * @return the distance.
+     */
+    public static int damerauLevenshteinBetween(CharSequence a, CharSequence b) {
+        int lengthA = a.length();
+        int lengthB = b.length();
+        int infinity = lengthA + lengthB;
+        int width = lengthB + 2;
+
+        // table[(i + 1) * width + j + 1] is the distance between the first i letters of a and the first
+        // j of b, with a border of infinity for transpositions reaching back past the start.
+        int[] table = new int[(lengthA + 2) * width];
+        int[] lastRows = new int[lengthB + 1];  // Last row so far whose letter of a is column j's letter of b
+        table[0] = infinity;
+        table[width] = infinity;
+        for(int j = 0; j <= lengthB; j++) {
+            table[j + 1] = infinity;
+            table[width + j + 1] = j;
+        }
+
+        for(int i = 1; i <= lengthA; i++) {
+            char charA = a.charAt(i - 1);
+            int row = (i + 1) * width;
+            table[row] = infinity;
+            table[row + 1] = i;
+            int lastColumn = 0;     // Last column so far in this row whose letter of b is charA
+            for(int j = 1; j <= lengthB; j++) {
+                int lastRow = lastRows[j];
+                int cost = charA == b.charAt(j - 1) ? 0 : 1;
+                int distance = Math.min(Math.min(table[row - width + j] + cost, table[row + j] + 1),
+                        table[row - width + j + 1] + 1);
+                // Transposing the letters at lastRow and lastColumn, with everything between them inserted or deleted.
+                distance = Math.min(distance, table[lastRow * width + lastColumn] +
+                        (i - lastRow - 1) + 1 + (j - lastColumn - 1));
+                table[row + j + 1] = distance;
+                if(cost == 0) {
+                    lastColumn = j;
+                }
+            }
+            for(int j = 1; j <= lengthB; j++) {
+                if(b.charAt(j - 1) == charA) {
+                    lastRows[j] = i;
+                }
+            }
+        }
+        return table[(lengthA + 1) * width + lengthB + 1];
+    }
+}
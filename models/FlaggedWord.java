@@ -0,0 +1,93 @@
+package models;
+
+/**
+ * @author agent
+ * Created on 17/10/2026
+ *
+ * A word found by the spellcheck, with why it was flagged and where it is.
+ */
+public final class FlaggedWord {
+    private final String word;
+    private final ReasonCode reason;
+    private final int occurrence;
+    private final int line;
+    private final int start;
+    private final int end;
+
+    /**
+     * Class constructor.
+     * @param word The word as it appears in the text.
+     * @param reason Why the word was flagged.
+     * @param occurrence How many times the word had been seen in the chapter, including this time.
+     * @param line The line the word is on.
+     * @param start Where the word starts in its line.
+     * @param end Where the word ends in its line.
+     */
+    public FlaggedWord(String word, ReasonCode reason, int occurrence, int line, int start, int end) {
+        this.word = word;
+        this.reason = reason;
+        this.occurrence = occurrence;
+        this.line = line;
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Returns a copy of this flagged word with its occurrence moved on, e.g. by the number of times
+     * the word was seen in the lines before the part of the chapter it was found in.
+     * @param earlierOccurrences Number of earlier occurrences to add.
+     * @return the flagged word with the new occurrence.
+     */
+    FlaggedWord withEarlierOccurrences(int earlierOccurrences) {
+        return earlierOccurrences == 0 ? this :
+                new FlaggedWord(word, reason, occurrence + earlierOccurrences, line, start, end);
+    }
+
+    /**
+     * Returns the flagged word.
+     * @return the word as it appears in the text.
+     */
+    public String getWord() {
+        return word;
+    }
+
+    /**
+     * Returns why the word was flagged.
+     * @return the reason.
+     */
+    public ReasonCode getReason() {
+        return reason;
+    }
+
+    /**
+     * Returns which occurrence of the word in the chapter this is.
+     * @return the occurrence, counting from 1.
+     */
+    public int getOccurrence() {
+        return occurrence;
+    }
+
+    /**
+     * Returns the line the word is on.
+     * @return the line number, counting from 0.
+     */
+    public int getLine() {
+        return line;
+    }
+
+    /**
+     * Returns where the word starts in its line.
+     * @return offset of the first char of the word.
+     */
+    public int getStart() {
+        return start;
+    }
+
+    /**
+     * Returns where the word ends in its line.
+     * @return offset just after the last char of the word.
+     */
+    public int getEnd() {
+        return end;
+    }
+}
@@ -0,0 +1,125 @@
+package models;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author agent
+ * Created on 17/10/2026
+ *
+ * Hands the lines of a chapter from the thread parsing it to the thread spellchecking it. The queue
+ * is bounded, so parsing waits for the spellcheck rather than holding the whole document in the queue.
+ * It also counts the lines parsed and spellchecked, to show how far the chapter has got.
+ */
+public final class LineQueue {
+    private static final String END = new String("");     // Compared by reference, never equal to a real line
+
+    private final BlockingQueue<String> queue;
+    private volatile boolean closed;
+    private volatile boolean cancelled;
+    private boolean ended;
+    private volatile long linesPut;         // Only counted by the parsing thread
+    private volatile long linesChecked;     // Only counted by the spellchecking thread
+
+    /**
+     * Class constructor.
+     * @param capacity Number of lines which can be waiting to be spellchecked.
+     */
+    public LineQueue(int capacity) {
+        queue = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /**
+     * Add a line, waiting while the queue is full. Does nothing once the queue is cancelled.
+     * @param line The next line of the chapter.
+     * @throws InterruptedException if interrupted while waiting, the line is not added.
+     */
+    public void put(String line) throws InterruptedException {
+        while(!cancelled) {
+            // Checking for cancellation every so often, so parsing never waits forever.
+            if(queue.offer(line, 100, TimeUnit.MILLISECONDS)) {
+                linesPut++;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Mark the end of the chapter, after the last line has been added. Must be called even if parsing
+     * fails, and never waits, so it can be called from a thread which has been interrupted.
+     */
+    public void close() {
+        closed = true;
+        queue.offer(END);   // Only to wake up take(), which also notices the queue is closed when it is full
+    }
+
+    /**
+     * Stop passing on the lines, e.g. because the user cancelled or a different chapter was chosen. Lines
+     * added after this are thrown away, and the spellcheck taking them stops.
+     */
+    public void cancel() {
+        cancelled = true;
+        queue.clear();
+    }
+
+    /**
+     * Whether the queue has been cancelled, so parsing the chapter can stop.
+     * @return true if cancelled.
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Take the next lines of the chapter, waiting until there are enough of them or the chapter has ended.
+     * @param maxLines Most lines to take.
+     * @return the lines, empty once the chapter has ended.
+     * @throws InterruptedException if interrupted while waiting.
+     * @throws CancellationException if the queue has been cancelled, as the lines will not all be given.
+     */
+    public List<String> take(int maxLines) throws InterruptedException {
+        List<String> lines = new ArrayList<>();
+        while(!ended && lines.size() < maxLines) {
+            if(cancelled) {
+                throw new CancellationException("The lines of the chapter were cancelled");
+            }
+            // Lines added before close() are always in the queue by the time closed is seen to be set.
+            boolean drained = closed && queue.isEmpty();
+            String line = drained ? END : queue.poll(100, TimeUnit.MILLISECONDS);
+            if(line == END) {
+                ended = true;
+            } else if(line != null) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Count lines taken from the queue which have been spellchecked.
+     * @param lines Number of lines.
+     */
+    public void checked(int lines) {
+        linesChecked += lines;
+    }
+
+    /**
+     * Number of lines of the chapter parsed so far.
+     * @return line count.
+     */
+    public long getLinesPut() {
+        return linesPut;
+    }
+
+    /**
+     * Number of lines of the chapter spellchecked so far.
+     * @return line count.
+     */
+    public long getLinesChecked() {
+        return linesChecked;
+    }
+}
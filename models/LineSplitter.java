@@ -0,0 +1,79 @@
+package models;
+
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.util.function.Consumer;
+
+/**
+ * @author agent
+ * Created on 17/10/2026
+ *
+ * Receives the text of a document from a SAX parser, e.g. wrapped in Tika's BodyContentHandler,
+ * and passes on each line as soon as it is complete, rather than collecting the whole document first.
+ * The lines are the same as splitting the whole text with "\r\n|[\r\n]": trailing empty lines are
+ * dropped, and a document with no line breaks at all is one line, even if it is empty.
+ */
+public final class LineSplitter extends DefaultHandler {
+    private final Consumer<String> lineConsumer;
+    private final StringBuilder line = new StringBuilder();
+    private boolean afterCarriageReturn;
+    private boolean lineBreakFound;
+    private int pendingEmptyLines;      // Only passed on if a non empty line follows them
+
+    /**
+     * Class constructor.
+     * @param lineConsumer Is given each line of the document, in order.
+     */
+    public LineSplitter(Consumer<String> lineConsumer) {
+        this.lineConsumer = lineConsumer;
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) {
+        for(int i = start; i < start + length; i++) {
+            char c = ch[i];
+            if(c == '\n') {
+                if(!afterCarriageReturn) {
+                    endLine();
+                }
+                afterCarriageReturn = false;
+            } else if(c == '\r') {
+                endLine();
+                afterCarriageReturn = true;
+            } else {
+                line.append(c);
+                afterCarriageReturn = false;
+            }
+        }
+    }
+
+    @Override
+    public void ignorableWhitespace(char[] ch, int start, int length) {
+        characters(ch, start, length);
+    }
+
+    /**
+     * Pass on the last line, once the parser has finished with the document.
+     */
+    public void finish() {
+        if(!lineBreakFound) {
+            lineConsumer.accept(line.toString());
+        } else if(line.length() > 0) {
+            endLine();
+        }
+        line.setLength(0);
+    }
+
+    private void endLine() {
+        lineBreakFound = true;
+        if(line.length() == 0) {
+            pendingEmptyLines++;
+            return;
+        }
+        for(; pendingEmptyLines > 0; pendingEmptyLines--) {
+            lineConsumer.accept("");
+        }
+        lineConsumer.accept(line.toString());
+        line.setLength(0);
+    }
+}
@@ -0,0 +1,17 @@
+package models;
+
+/**
+ * @author agent
+ * Created on 17/10/2026
+ *
+ * A rule for marks which must come in pairs, e.g. quotes. The marks are counted over the whole
+ * chapter, and one exception is given if there is an odd number of them. Given every token.
+ */
+public interface PairRule extends CheckRule {
+    /**
+     * Checks whether the token is one of the marks counted by this rule.
+     * @param token The token to check.
+     * @return whether or not the token is counted.
+     */
+    boolean isPairedMark(Token token);
+}
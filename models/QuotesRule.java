@@ -0,0 +1,19 @@
+package models;
+
+/**
+ * @author agent
+ * Created on 17/10/2026
+ *
+ * Counts double quotes, so an extra or missing one can be flagged.
+ */
+public final class QuotesRule implements PairRule {
+    @Override
+    public ReasonCode getReasonCode() {
+        return ReasonCode.QUOTES_ODD;
+    }
+
+    @Override
+    public boolean isPairedMark(Token token) {
+        return token.getType() == TokenType.QUOTE;
+    }
+}
@@ -0,0 +1,29 @@
+package models;
+
+/**
+ * @author Izabella Szabo
+ * Created on 24/12/2015
+ *
+ * Reason why the word was flagged as an exception.
+ */
+public enum ReasonCode {
+    BLANK_SPACE("Extra blank space"),
+    BRACKETS_ODD("Extra or missing bracket () [] {} <>"),
+    QUOTES_ODD("Extra or missing quote \""),
+    DUPLICATE("Duplicate word"),
+    NOT_CAPITAL("Should be capitalised"),
+    NOT_IN_DICT("Not found in dictionaries");
+
+    private String reasonCode;
+    ReasonCode(String value){
+        reasonCode = value;
+    }
+
+    /**
+     * Returns the reason as shown to the user and written to the exceptions file.
+     * @return the text of the reason.
+     */
+    public String getText(){
+        return reasonCode;
+    }
+}
@@ -0,0 +1,130 @@
+package models;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author agent
+ * Created on 17/10/2026
+ *
+ * The rules a chapter is checked with. Every rule is given the same token stream in one pass over
+ * the lines, and only the rules which are switched on are in the set, so a rule which is turned off
+ * costs nothing.
+ *
+ * The number of exceptions each rule finds and the time spent in it are added up over every check
+ * made with the set. Calling the clock around every rule would take about as long as the simpler rules
+ * themselves, so only every TIMING_SAMPLE_RATE-th token is timed and the times are scaled up.
+ */
+public final class RuleSet {
+    private static final int TIMING_SAMPLE_RATE = 16;
+
+    private final PairRule[] pairRules;
+    private final WordRule[] wordRules;
+    private final LongAdder[] hits;         // Pair rules first, then word rules
+    private final LongAdder[] sampledTimes; // In nanoseconds, before scaling
+
+    /**
+     * Class constructor.
+     * @param rules The rules to check with. Word rules are tried in the order given.
+     */
+    public RuleSet(List<? extends CheckRule> rules) {
+        List<PairRule> pairs = new ArrayList<>();
+        List<WordRule> words = new ArrayList<>();
+        for(CheckRule rule : rules) {
+            if(rule instanceof PairRule) {
+                pairs.add((PairRule) rule);
+            } else if(rule instanceof WordRule) {
+                words.add((WordRule) rule);
+            } else {
+                throw new IllegalArgumentException("Unknown kind of rule: " + rule.getClass().getName());
+            }
+        }
+        pairRules = pairs.toArray(new PairRule[pairs.size()]);
+        wordRules = words.toArray(new WordRule[words.size()]);
+
+        hits = new LongAdder[pairRules.length + wordRules.length];
+        sampledTimes = new LongAdder[hits.length];
+        for(int i = 0; i < hits.length; i++) {
+            hits[i] = new LongAdder();
+            sampledTimes[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Class constructor.
+     * @param rules The rules to check with. Word rules are tried in the order given.
+     */
+    public RuleSet(CheckRule... rules) {
+        this(Arrays.asList(rules));
+    }
+
+    PairRule[] getPairRules() {
+        return pairRules;
+    }
+
+    WordRule[] getWordRules() {
+        return wordRules;
+    }
+
+    static boolean isTimed(int tokenNo) {
+        return tokenNo % TIMING_SAMPLE_RATE == 0;
+    }
+
+    /**
+     * Add the counters of one check. Both arrays hold the pair rules first, then the word rules.
+     */
+    void record(long[] ruleHits, long[] ruleSampledTimes) {
+        for(int i = 0; i < hits.length; i++) {
+            hits[i].add(ruleHits[i]);
+            sampledTimes[i].add(ruleSampledTimes[i]);
+        }
+    }
+
+    /**
+     * Number of exceptions found by the rule so far. For a pair rule, this is the number of marks counted.
+     * @param reason The reason code of the rule.
+     * @return the hit count, 0 if the rule is not in the set.
+     */
+    public long getHitCount(ReasonCode reason) {
+        int i = indexOf(reason);
+        return i < 0 ? 0 : hits[i].sum();
+    }
+
+    /**
+     * Estimated time spent in the rule so far, in ms.
+     * @param reason The reason code of the rule.
+     * @return the time taken, 0 if the rule is not in the set.
+     */
+    public long getTime(ReasonCode reason) {
+        int i = indexOf(reason);
+        return i < 0 ? 0 : sampledTimes[i].sum() * TIMING_SAMPLE_RATE / 1000000;
+    }
+
+    /**
+     * Summary of the rule counters, e.g. for the error log or a status line.
+     * @return the rule statistics as text.
+     */
+    public String getStatistics() {
+        StringBuilder statistics = new StringBuilder("Rules:");
+        for(int i = 0; i < hits.length; i++) {
+            ReasonCode reason = ruleAt(i).getReasonCode();
+            statistics.append(String.format(" %s: %d hits, ~%d ms;", reason.name(), getHitCount(reason), getTime(reason)));
+        }
+        return statistics.toString();
+    }
+
+    private CheckRule ruleAt(int i) {
+        return i < pairRules.length ? pairRules[i] : wordRules[i - pairRules.length];
+    }
+
+    private int indexOf(ReasonCode reason) {
+        for(int i = 0; i < hits.length; i++) {
+            if(ruleAt(i).getReasonCode() == reason) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,103 @@
+package models;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * @author agent
+ * Created on 17/10/2026
+ *
+ * What was found by spellchecking a range of lines: the flagged words, how often each token
+ * occurred, how many words were checked and how long that took, and which paired marks, e.g.
+ * brackets or quotes, were seen an odd number of times. Results of neighbouring ranges are merged
+ * so they are the same as if the lines had been checked in one go.
+ */
+public final class SpellCheckResult {
+    private List<FlaggedWord> flaggedWords;
+    private final TokenTable occurrences;
+    private final EnumSet<ReasonCode> oddPairs;
+    private long wordCount;
+    private long checkNanos;
+    private String[] lines;
+
+    SpellCheckResult(List<FlaggedWord> flaggedWords, TokenTable occurrences, EnumSet<ReasonCode> oddPairs,
+                     long wordCount, long checkNanos) {
+        this.flaggedWords = flaggedWords;
+        this.occurrences = occurrences;
+        this.oddPairs = oddPairs;
+        this.wordCount = wordCount;
+        this.checkNanos = checkNanos;
+    }
+
+    /**
+     * Add on the result of the range of lines straight after this one. The occurrences of the words
+     * flagged in the next range are moved on by the number of times they were seen in this one.
+     * @param next The result of the following range.
+     * @return this result, now covering both ranges.
+     */
+    SpellCheckResult append(SpellCheckResult next) {
+        List<FlaggedWord> merged = new ArrayList<>(flaggedWords.size() + next.flaggedWords.size());
+        merged.addAll(flaggedWords);
+        for(FlaggedWord flaggedWord : next.flaggedWords) {
+            merged.add(flaggedWord.withEarlierOccurrences(occurrences.getCount(flaggedWord.getWord())));
+        }
+        flaggedWords = merged;
+        occurrences.addAll(next.occurrences);
+        wordCount += next.wordCount;
+        checkNanos += next.checkNanos;
+        for(ReasonCode reason : next.oddPairs) {
+            if(!oddPairs.remove(reason)) {
+                oddPairs.add(reason);
+            }
+        }
+        return this;
+    }
+
+    void setLines(String[] lines) {
+        this.lines = lines;
+    }
+
+    /**
+     * Returns the lines of the chapter as they were checked, e.g. with extra blank spaces removed.
+     * The positions of the flagged words are in these lines.
+     * @return the lines, or null if this is only the result of part of a chapter.
+     */
+    public String[] getLines() {
+        return lines;
+    }
+
+    /**
+     * Returns the flagged words, in the order they appear in the text.
+     * @return the flagged words.
+     */
+    public List<FlaggedWord> getFlaggedWords() {
+        return flaggedWords;
+    }
+
+    /**
+     * Returns the reasons of the pair rules which counted an odd number of marks, i.e. one is extra or missing.
+     * @return the reason codes, in their declared order.
+     */
+    public Set<ReasonCode> getOddPairs() {
+        return oddPairs;
+    }
+
+    /**
+     * Returns the number of words checked by the word rules, i.e. not counting punctuation and numbers.
+     * @return the word count.
+     */
+    public long getWordCount() {
+        return wordCount;
+    }
+
+    /**
+     * Returns how long the lines took to check, added up over the threads they were checked on. Time
+     * spent waiting for lines to check, e.g. while a chapter is parsed, is not counted.
+     * @return the time in nanoseconds.
+     */
+    public long getCheckNanos() {
+        return checkNanos;
+    }
+}
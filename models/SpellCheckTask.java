@@ -0,0 +1,155 @@
+package models;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * @author agent
+ * Created on 17/10/2026
+ *
+ * Spellchecks the lines of a chapter on a ForkJoinPool. Large ranges of lines are split in two and
+ * checked at the same time, then the two results are merged. Every check only looks at one line at
+ * a time, apart from the occurrence counts and the parity of paired marks such as brackets and
+ * quotes, which SpellCheckResult carries across, so the result is the same as checking every line
+ * in order on one thread.
+ *
+ * The checks themselves are the rules of a RuleSet, e.g.:
+ * o More than one blank space between words
+ * o Even number of brackets and quotes
+ * o Duplicate word
+ * o The first letter of a sentence is not capitalised
+ * o The word cannot be found in either the General Dictionary nor the Project Specific Dictionary
+ */
+public final class SpellCheckTask extends RecursiveTask<SpellCheckResult> {
+    private static final long serialVersionUID = 1L;
+    private static final int LINES_PER_TASK = 1024;
+
+    private final String[] lines;
+    private final int firstLineNo;      // Line number of lines[0] in the chapter
+    private final int from;
+    private final int to;
+    private final RuleSet rules;
+
+    /**
+     * Class constructor, to check all the lines.
+     * @param lines The lines of the chapter.
+     * @param rules The rules to check the words with.
+     */
+    public SpellCheckTask(String[] lines, RuleSet rules) {
+        this(lines, 0, rules);
+    }
+
+    /**
+     * Class constructor, to check part of a chapter.
+     * @param lines The lines to check.
+     * @param firstLineNo The line number of the first of the lines in the chapter.
+     * @param rules The rules to check the words with.
+     */
+    public SpellCheckTask(String[] lines, int firstLineNo, RuleSet rules) {
+        this(lines, firstLineNo, 0, lines.length, rules);
+    }
+
+    private SpellCheckTask(String[] lines, int firstLineNo, int from, int to, RuleSet rules) {
+        this.lines = lines;
+        this.firstLineNo = firstLineNo;
+        this.from = from;
+        this.to = to;
+        this.rules = rules;
+    }
+
+    /**
+     * Number of lines the task checks.
+     * @return line count.
+     */
+    public int getLineCount() {
+        return to - from;
+    }
+
+    @Override
+    protected SpellCheckResult compute() {
+        if(to - from <= LINES_PER_TASK) {
+            return checkLines();
+        }
+        int middle = (from + to) >>> 1;
+        SpellCheckTask firstHalf = new SpellCheckTask(lines, firstLineNo, from, middle, rules);
+        SpellCheckTask secondHalf = new SpellCheckTask(lines, firstLineNo, middle, to, rules);
+        firstHalf.fork();
+        SpellCheckResult secondResult = secondHalf.compute();
+        return firstHalf.join().append(secondResult);
+    }
+
+    private SpellCheckResult checkLines() {
+        long checkStartTime = System.nanoTime();
+        List<FlaggedWord> flaggedWords = new ArrayList<>();
+        TokenTable occurrences = new TokenTable();
+        Tokenizer tokenizer = new Tokenizer();
+        PairRule[] pairRules = rules.getPairRules();
+        WordRule[] wordRules = rules.getWordRules();
+        boolean[] pairsOdd = new boolean[pairRules.length];
+        long[] hits = new long[pairRules.length + wordRules.length];
+        long[] sampledTimes = new long[hits.length];
+        int tokenNo = 0;
+        long wordCount = 0;
+
+        for(int lineNo = from; lineNo < to; lineNo++) {
+            tokenizer.reset(lines[lineNo]);
+
+            while(tokenizer.next()) {
+                Token previousWord = tokenizer.previous();
+                Token currentWord = tokenizer.current();
+                boolean timed = RuleSet.isTimed(tokenNo++);
+
+                int entry = occurrences.add(currentWord);
+                int occurrence = occurrences.getCount(entry);
+                currentWord.setEntry(occurrences, entry);
+                ReasonCode reason = null;
+
+                // Brackets {} () <>, quotes "
+                for (int i = 0; i < pairRules.length; i++) {
+                    long startTime = timed ? System.nanoTime() : 0;
+                    boolean paired = pairRules[i].isPairedMark(currentWord);
+                    if (timed)
+                        sampledTimes[i] += System.nanoTime() - startTime;
+                    if (paired) {
+                        pairsOdd[i] = !pairsOdd[i];
+                        hits[i]++;
+                    }
+                }
+
+                // Ignore punctuation (including: '--' '."') and digits
+                if (currentWord.getType().isPunctuationOrNumber())
+                    continue;
+                wordCount++;
+
+                // The first rule to flag the word gives the reason
+                for (int i = 0; i < wordRules.length && reason == null; i++) {
+                    long startTime = timed ? System.nanoTime() : 0;
+                    boolean flagged = wordRules[i].isFlagged(previousWord, currentWord);
+                    if (timed)
+                        sampledTimes[pairRules.length + i] += System.nanoTime() - startTime;
+                    if (flagged) {
+                        reason = wordRules[i].getReasonCode();
+                        hits[pairRules.length + i]++;
+                    }
+                }
+
+                if (reason != null) {
+                    flaggedWords.add(new FlaggedWord(occurrences.getWord(entry), reason, occurrence,
+                            firstLineNo + lineNo, currentWord.getStart(), currentWord.getEnd()));
+                }
+            }
+        }
+        rules.record(hits, sampledTimes);
+
+        EnumSet<ReasonCode> oddPairs = EnumSet.noneOf(ReasonCode.class);
+        for(int i = 0; i < pairRules.length; i++) {
+            if(pairsOdd[i]) {
+                oddPairs.add(pairRules[i].getReasonCode());
+            }
+        }
+        return new SpellCheckResult(flaggedWords, occurrences, oddPairs, wordCount,
+                System.nanoTime() - checkStartTime);
+    }
+}
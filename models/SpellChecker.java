@@ -0,0 +1,188 @@
+package models;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * @author agent
+ * Created on 17/10/2026
+ *
+ * The spellchecker on its own, without the user interface, DropBox or file conversion, so it can be
+ * used by other applications. Given the dictionaries once, it checks any number of chapters, given as
+ * lines, text or a LineQueue being filled in by a parser, and returns the exceptions found.
+ *
+ * A SpellChecker can be shared between threads. Any number of chapters can be checked at the same
+ * time; adding a word to the project dictionary waits for the checks in progress to finish.
+ */
+public final class SpellChecker {
+    /**
+     * Every check, as the reason codes of the exceptions they give.
+     */
+    public static final Set<ReasonCode> ALL_CHECKS = Collections.unmodifiableSet(EnumSet.allOf(ReasonCode.class));
+
+    private final DictionaryLookup dictionaries;
+    private final DictionaryRule dictionaryRule;
+    private final ReadWriteLock dictionaryLock = new ReentrantReadWriteLock();
+    private final Map<Set<ReasonCode>, RuleSet> ruleSets = new ConcurrentHashMap<>();
+    private volatile RuleSet lastRules;     // Rules the last chapter was checked with
+
+    /**
+     * Class constructor.
+     * @param genDic The generic dictionary.
+     * @param bookDicWords The words of the project dictionary.
+     */
+    public SpellChecker(Dictionary genDic, Collection<String> bookDicWords) {
+        dictionaries = new DictionaryLookup(genDic, bookDicWords);
+        dictionaryRule = new DictionaryRule(dictionaries);
+    }
+
+    /**
+     * Spellcheck the lines of a chapter. Large chapters are split into ranges of lines which are
+     * checked at the same time.
+     * @param lines The lines of the chapter. They are not changed.
+     * @param checks The checks to perform, as the reason codes of the exceptions they give.
+     * @param removeExtraBlanks Whether to replace runs of spaces and tabs with one space before checking,
+     *                          instead of flagging them.
+     * @return what was found in the chapter, with the lines as they were checked.
+     */
+    public SpellCheckResult check(String[] lines, Set<ReasonCode> checks, boolean removeExtraBlanks) {
+        String[] checkedLines = lines;
+        if(removeExtraBlanks) {
+            checkedLines = new String[lines.length];
+            for(int i = 0; i < lines.length; i++) {
+                checkedLines[i] = lines[i].replaceAll("[ \\t]+", " ");
+            }
+        }
+
+        RuleSet rules = getRules(checks, removeExtraBlanks);
+        SpellCheckResult result;
+        dictionaryLock.readLock().lock();
+        try {
+            // Run on the calling thread, the ranges split off go to its pool, or the common pool.
+            result = new SpellCheckTask(checkedLines, rules).invoke();
+        } finally {
+            dictionaryLock.readLock().unlock();
+        }
+        result.setLines(checkedLines);
+        return result;
+    }
+
+    /**
+     * Spellcheck a chapter given as text, split into lines at each line break.
+     * @param text The text of the chapter.
+     * @param checks The checks to perform, as the reason codes of the exceptions they give.
+     * @param removeExtraBlanks Whether to replace runs of spaces and tabs with one space before checking,
+     *                          instead of flagging them.
+     * @return what was found in the chapter, with the lines as they were checked.
+     */
+    public SpellCheckResult check(String text, Set<ReasonCode> checks, boolean removeExtraBlanks) {
+        return check(text.split("\\r\\n|[\\r\\n]"), checks, removeExtraBlanks);
+    }
+
+    /**
+     * Spellcheck a chapter while it is still being parsed, until the queue is closed.
+     * @param queue The lines of the chapter, as they are parsed.
+     * @param checks The checks to perform, as the reason codes of the exceptions they give.
+     * @param removeExtraBlanks Whether to replace runs of spaces and tabs with one space before checking,
+     *                          instead of flagging them.
+     * @return what was found in the chapter, with the lines as they were checked.
+     * @throws InterruptedException if interrupted while waiting for lines.
+     * @throws java.util.concurrent.CancellationException if the queue is cancelled before every line has been checked.
+     */
+    public SpellCheckResult check(LineQueue queue, Set<ReasonCode> checks, boolean removeExtraBlanks)
+            throws InterruptedException {
+        List<String> checkedLines = new ArrayList<>();
+        RuleSet rules = getRules(checks, removeExtraBlanks);
+        SpellCheckResult result;
+        dictionaryLock.readLock().lock();
+        try {
+            result = new StreamingSpellChecker(rules, removeExtraBlanks).check(queue, checkedLines);
+        } finally {
+            dictionaryLock.readLock().unlock();
+        }
+        result.setLines(checkedLines.toArray(new String[checkedLines.size()]));
+        return result;
+    }
+
+    /**
+     * Add a word which has just been added to the project dictionary, so it is no longer flagged.
+     * @param word The word added.
+     */
+    public void addProjectWord(String word) {
+        dictionaryLock.writeLock().lock();
+        try {
+            dictionaries.addProjectWord(word);
+        } finally {
+            dictionaryLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns how often a word's dictionary lookup was saved by its earlier occurrences, and how often
+     * the dictionary filter answered lookups on its own, and how often it was wrong.
+     * @return the dictionary statistics as text.
+     */
+    public String getDictionaryStatistics() {
+        return dictionaryRule.getStatistics() + ", " + dictionaries.getStatistics();
+    }
+
+    /**
+     * Returns how many exceptions each rule has found, and the time spent in each, over every chapter
+     * checked with the same checks as the last one.
+     * @return the rule statistics as text, empty if nothing has been checked yet.
+     */
+    public String getRuleStatistics() {
+        RuleSet rules = lastRules;
+        return rules == null ? "" : rules.getStatistics();
+    }
+
+    /**
+     * Returns the rules for the checks, building them the first time the checks are asked for.
+     * Extra blank spaces are not looked for if they are removed before checking.
+     */
+    private RuleSet getRules(Set<ReasonCode> checks, boolean removeExtraBlanks) {
+        EnumSet<ReasonCode> reasons = checks.isEmpty() ? EnumSet.noneOf(ReasonCode.class) : EnumSet.copyOf(checks);
+        if(removeExtraBlanks) {
+            reasons.remove(ReasonCode.BLANK_SPACE);
+        }
+        RuleSet rules = ruleSets.computeIfAbsent(reasons, this::buildRules);
+        lastRules = rules;
+        return rules;
+    }
+
+    private RuleSet buildRules(Set<ReasonCode> reasons) {
+        // The reason codes are in the order the word rules are tried.
+        List<CheckRule> rules = new ArrayList<>();
+        for(ReasonCode reason : reasons) {
+            switch(reason) {
+                case BLANK_SPACE:
+                    rules.add(new BlankSpaceRule());
+                    break;
+                case BRACKETS_ODD:
+                    rules.add(new BracketsRule());
+                    break;
+                case QUOTES_ODD:
+                    rules.add(new QuotesRule());
+                    break;
+                case DUPLICATE:
+                    rules.add(new DuplicateWordRule());
+                    break;
+                case NOT_CAPITAL:
+                    rules.add(new CapitalisationRule());
+                    break;
+                case NOT_IN_DICT:
+                    rules.add(dictionaryRule);
+                    break;
+            }
+        }
+        return new RuleSet(rules);
+    }
+}
@@ -0,0 +1,91 @@
+package models;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * @author agent
+ * Created on 17/10/2026
+ *
+ * Spellchecks a chapter while it is still being parsed. Lines are taken from a LineQueue in blocks,
+ * each block is checked by a SpellCheckTask on the ForkJoinPool while the next block is read, and
+ * the results are merged in order, so the result is the same as checking the whole chapter at once.
+ * The time each block took to check is added up as it is merged, leaving out the time spent waiting
+ * for the parser.
+ * No more blocks are taken while a few are waiting to be checked on every thread of the pool, so
+ * parsing waits for the spellcheck. Cancelling the queue stops the check, and the blocks not yet
+ * checked are cancelled.
+ */
+public final class StreamingSpellChecker {
+    private static final int LINES_PER_TASK = 1024;
+    private static final int MAX_TASKS_RUNNING = Math.max(ForkJoinPool.getCommonPoolParallelism(), 1) * 4;
+
+    private final RuleSet rules;
+    private final boolean removeExtraBlanks;
+
+    /**
+     * Class constructor.
+     * @param rules The rules to check the words with.
+     * @param removeExtraBlanks Whether to replace runs of spaces and tabs in the lines with one space before checking.
+     */
+    public StreamingSpellChecker(RuleSet rules, boolean removeExtraBlanks) {
+        this.rules = rules;
+        this.removeExtraBlanks = removeExtraBlanks;
+    }
+
+    /**
+     * Spellcheck every line put in the queue, until it is closed.
+     * @param queue The lines of the chapter, as they are parsed.
+     * @param lines Is given every line taken from the queue, as it was checked.
+     * @return what was found in the chapter.
+     * @throws InterruptedException if interrupted while waiting for lines.
+     * @throws CancellationException if the queue is cancelled before every line has been checked.
+     */
+    public SpellCheckResult check(LineQueue queue, List<String> lines) throws InterruptedException {
+        Deque<SpellCheckTask> running = new ArrayDeque<>();
+        SpellCheckResult result = new SpellCheckResult(new ArrayList<>(), new TokenTable(),
+                EnumSet.noneOf(ReasonCode.class), 0, 0);
+
+        try {
+            List<String> block;
+            while(!(block = queue.take(LINES_PER_TASK)).isEmpty()) {
+                if(removeExtraBlanks) {
+                    block.replaceAll(line -> line.replaceAll("[ \\t]+", " "));
+                }
+                SpellCheckTask task = new SpellCheckTask(block.toArray(new String[block.size()]), lines.size(), rules);
+                ForkJoinPool.commonPool().execute(task);
+                running.add(task);
+                lines.addAll(block);
+
+                // Merging the blocks already checked, so their token counts are not all kept until the end,
+                // and waiting for the oldest block if there are too many still to check.
+                while(!running.isEmpty() && (running.peek().isDone() || running.size() >= MAX_TASKS_RUNNING)) {
+                    merge(running.poll(), result, queue);
+                }
+            }
+
+            while(!running.isEmpty()) {
+                if(queue.isCancelled()) {
+                    throw new CancellationException("The lines of the chapter were cancelled");
+                }
+                merge(running.poll(), result, queue);
+            }
+        } catch(CancellationException | InterruptedException e) {
+            for(SpellCheckTask task : running) {
+                task.cancel(false);
+            }
+            throw e;
+        }
+        return result;
+    }
+
+    private static void merge(SpellCheckTask task, SpellCheckResult result, LineQueue queue) {
+        result.append(task.join());
+        queue.checked(task.getLineCount());
+    }
+}
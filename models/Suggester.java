@@ -0,0 +1,36 @@
+package models;
+
+import java.util.List;
+
+/**
+ * @author agent
+ * Created on 17/10/2026
+ *
+ * Suggests correctly spelled words for a word which was not found in the dictionaries.
+ */
+public interface Suggester {
+    /**
+     * The largest edit distance between a word and its suggestions.
+     */
+    int MAX_EDIT_DISTANCE = 2;
+
+    /**
+     * Returns dictionary words within MAX_EDIT_DISTANCE of the word, closest first.
+     * @param word The misspelled word.
+     * @param maxSuggestions The most suggestions to return.
+     * @return the suggestions, possibly none.
+     */
+    List<String> suggest(String word, int maxSuggestions);
+
+    /**
+     * Time it took to build the suggester.
+     * @return build time in milliseconds.
+     */
+    long getBuildTime();
+
+    /**
+     * Approximate number of bytes used by the suggester's own structures, not counting the dictionaries.
+     * @return size in bytes.
+     */
+    long getMemoryFootprint();
+}
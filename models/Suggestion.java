@@ -0,0 +1,66 @@
+package models;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @author agent
+ * Created on 17/10/2026
+ *
+ * A candidate suggestion and its edit distance from the misspelled word, used when ranking suggestions.
+ */
+final class Suggestion {
+    private final String word;
+    private final int distance;
+
+    Suggestion(String word, int distance) {
+        this.word = word;
+        this.distance = distance;
+    }
+
+    /**
+     * Closest first; among equally close words, those nearest in length to the misspelled word, then alphabetical.
+     */
+    private int compareTo(Suggestion other, int wordLength) {
+        if(distance != other.distance) {
+            return Integer.compare(distance, other.distance);
+        }
+        int lengthDifference = Math.abs(word.length() - wordLength);
+        int otherLengthDifference = Math.abs(other.word.length() - wordLength);
+        if(lengthDifference != otherLengthDifference) {
+            return Integer.compare(lengthDifference, otherLengthDifference);
+        }
+        return word.compareTo(other.word);
+    }
+
+    /**
+     * Rank the candidates and return the best of them as words.
+     * @param candidates Words within the maximum edit distance.
+     * @param misspelledWord The word the suggestions are for.
+     * @param capitalised Whether to capitalise the first letter of each suggestion.
+     * @param maxSuggestions The most suggestions to return.
+     * @return the suggested words, best first.
+     */
+    static List<String> best(List<Suggestion> candidates, String misspelledWord, boolean capitalised,
+                             int maxSuggestions) {
+        List<Suggestion> ranked = new ArrayList<>(candidates);
+        Collections.sort(ranked, (a, b) -> a.compareTo(b, misspelledWord.length()));
+
+        List<String> suggestions = new ArrayList<>();
+        for(Suggestion suggestion : ranked) {
+            if(suggestions.size() == maxSuggestions) {
+                break;
+            }
+            String word = suggestion.word;
+            if(capitalised) {
+                word = Character.toUpperCase(word.charAt(0)) + word.substring(1);
+            }
+            // The same word may be in both dictionaries, or differ only in case from another suggestion.
+            if(!suggestions.contains(word) && !word.equals(misspelledWord)) {
+                suggestions.add(word);
+            }
+        }
+        return suggestions;
+    }
+}
@@ -0,0 +1,175 @@
+package models;
+
+import java.util.*;
+
+/**
+ * @author agent
+ * Created on 17/10/2026
+ *
+ * Suggestions using symmetric deletes (as in SymSpell). Every word in the dictionaries has all the
+ * variants made by deleting up to MAX_EDIT_DISTANCE of its letters precomputed. A misspelled word
+ * has the same deletes made, and any dictionary word sharing a delete with it is a candidate, which
+ * is then confirmed by calculating the real edit distance. Finding suggestions only takes
+ * a few lookups, at the cost of an index many times the size of the dictionary.
+ *
+ * Only the first PREFIX_LENGTH letters of each word are used for the deletes, which keeps the index
+ * size manageable while still finding all the candidates. Each delete is stored as one long: a
+ * 40 bit hash of the delete and a 24 bit word id, all in one sorted array. A hash collision only adds
+ * a candidate which the edit distance check throws out.
+ *
+ * The array is sized from the word lengths before any delete is made and sorted in place, so building
+ * the index takes no more memory than the finished index.
+ */
+public final class SymSpellIndex implements Suggester {
+    private static final int PREFIX_LENGTH = 7;
+    private static final int ID_BITS = 24;
+    private static final long ID_MASK = (1L << ID_BITS) - 1;
+
+    private final Dictionary[] dictionaries;
+    private final int[] firstIds;   // Id of the first word of each dictionary
+    private final long[] deletes;   // Sorted (delete hash << ID_BITS) | word id, in the first deleteCount
+    private final int deleteCount;
+    private final long buildTime;
+
+    /**
+     * Class constructor. Builds the index over every word of the dictionaries.
+     * @param dictionaries The dictionaries to suggest words from.
+     */
+    public SymSpellIndex(Dictionary... dictionaries) {
+        long startTime = System.nanoTime();
+        this.dictionaries = dictionaries;
+        firstIds = new int[dictionaries.length];
+
+        int noOfWords = 0;
+        long maxDeletes = 0;
+        for(int i = 0; i < dictionaries.length; i++) {
+            firstIds[i] = noOfWords;
+            noOfWords += dictionaries[i].size();
+            for(int j = 0; j < dictionaries[i].size(); j++) {
+                // 1 + n + n(n - 1)/2 deletes, for a prefix of n letters.
+                int n = Math.min(dictionaries[i].wordAt(j).length(), PREFIX_LENGTH);
+                maxDeletes += 1 + n + n * (n - 1) / 2;
+            }
+        }
+        if(noOfWords > ID_MASK || maxDeletes > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Too many words for a suggestion index: " + noOfWords);
+        }
+
+        long[] wordDeletes = new long[(int) maxDeletes];
+        int[] size = new int[1];
+        int id = 0;
+        for(Dictionary dictionary : dictionaries) {
+            for(int i = 0; i < dictionary.size(); i++, id++) {
+                final long wordId = id;
+                forEachDelete(dictionary.wordAt(i), hash -> wordDeletes[size[0]++] = (hash << ID_BITS) | wordId);
+            }
+        }
+
+        // Sorting, then dropping the deletes a word has more than once, e.g. either l of "hello".
+        Arrays.sort(wordDeletes, 0, size[0]);
+        int distinct = 0;
+        for(int i = 0; i < size[0]; i++) {
+            if(i == 0 || wordDeletes[i] != wordDeletes[i - 1]) {
+                wordDeletes[distinct++] = wordDeletes[i];
+            }
+        }
+        deletes = wordDeletes;
+        deleteCount = distinct;
+        buildTime = (System.nanoTime() - startTime) / 1000000;
+    }
+
+    @Override
+    public List<String> suggest(String word, int maxSuggestions) {
+        if(word.isEmpty()) {
+            return Collections.emptyList();
+        }
+        // Dictionary words are mostly lower case, a capital at the start of a sentence is put back afterwards.
+        String lowerCaseWord = word.toLowerCase();
+        boolean capitalised = !word.equals(lowerCaseWord) && Character.isUpperCase(word.charAt(0));
+
+        Set<Integer> candidateIds = new HashSet<>();
+        forEachDelete(lowerCaseWord, hash -> {
+            long key = hash << ID_BITS;
+            int position = firstAtLeast(key);
+            while(position < deleteCount && (deletes[position] & ~ID_MASK) == key) {
+                candidateIds.add((int) (deletes[position] & ID_MASK));
+                position++;
+            }
+        });
+
+        List<Suggestion> suggestions = new ArrayList<>();
+        for(int id : candidateIds) {
+            String candidate = wordWithId(id);
+            int distance = EditDistance.between(lowerCaseWord, candidate, MAX_EDIT_DISTANCE);
+            if(distance <= MAX_EDIT_DISTANCE) {
+                suggestions.add(new Suggestion(candidate, distance));
+            }
+        }
+        return Suggestion.best(suggestions, word, capitalised, maxSuggestions);
+    }
+
+    @Override
+    public long getBuildTime() {
+        return buildTime;
+    }
+
+    @Override
+    public long getMemoryFootprint() {
+        return deletes.length * 8L + firstIds.length * 4L;
+    }
+
+    private String wordWithId(int id) {
+        int i = dictionaries.length - 1;
+        while(firstIds[i] > id) {
+            i--;
+        }
+        return dictionaries[i].wordAt(id - firstIds[i]);
+    }
+
+    // Binary search for the first entry not less than key.
+    private int firstAtLeast(long key) {
+        int low = 0;
+        int high = deleteCount;
+        while(low < high) {
+            int middle = (low + high) >>> 1;
+            if(deletes[middle] < key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private interface HashConsumer {
+        void accept(long hash);
+    }
+
+    /**
+     * Pass the hash of every variant of the word's prefix with up to MAX_EDIT_DISTANCE letters deleted,
+     * including the prefix itself. The variants are hashed in place rather than created as Strings.
+     */
+    private static void forEachDelete(String word, HashConsumer consumer) {
+        int length = Math.min(word.length(), PREFIX_LENGTH);
+        consumer.accept(hash(word, length, -1, -1));
+        for(int i = 0; i < length; i++) {
+            consumer.accept(hash(word, length, i, -1));
+            for(int j = i + 1; j < length; j++) {
+                consumer.accept(hash(word, length, i, j));
+            }
+        }
+    }
+
+    // 40 bit FNV-1a hash of the first length chars of the word, skipping the chars at two positions.
+    private static long hash(String word, int length, int skip1, int skip2) {
+        long h = 0xcbf29ce484222325L;
+        for(int i = 0; i < length; i++) {
+            if(i != skip1 && i != skip2) {
+                h ^= word.charAt(i);
+                h *= 0x100000001b3L;
+            }
+        }
+        h ^= h >>> 29;
+        return h & ((1L << (64 - ID_BITS)) - 1);
+    }
+}
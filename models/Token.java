@@ -0,0 +1,111 @@
+package models;
+
+/**
+ * @author agent
+ * Created on 17/10/2026
+ *
+ * A token of a line, as a view of the line's chars rather than a copy. The Tokenizer reuses its
+ * Token objects, so a Token is only valid until the Tokenizer moves on; use toString to keep one.
+ */
+public final class Token implements CharSequence {
+    private CharSequence line = "";
+    private int start;
+    private int end;
+    private TokenType type = TokenType.EMPTY;
+    private TokenTable table;       // Where the verdicts on this token are kept, if anywhere
+    private int entry;
+
+    Token() {
+    }
+
+    void set(CharSequence line, int start, int end, TokenType type) {
+        this.line = line;
+        this.start = start;
+        this.end = end;
+        this.type = type;
+        this.table = null;
+    }
+
+    /**
+     * Link the token to its entry in a TokenTable, so verdicts on it are kept for the token's next occurrences.
+     */
+    void setEntry(TokenTable table, int entry) {
+        this.table = table;
+        this.entry = entry;
+    }
+
+    /**
+     * Returns what has been found out about this token's text so far, see TokenTable.getVerdict.
+     */
+    int getVerdict() {
+        return table == null ? 0 : table.getVerdict(entry);
+    }
+
+    void setVerdict(int verdict) {
+        if(table != null) {
+            table.setVerdict(entry, verdict);
+        }
+    }
+
+    /**
+     * Returns the kind of token this is.
+     * @return the token type.
+     */
+    public TokenType getType() {
+        return type;
+    }
+
+    /**
+     * Returns where the token starts in its line.
+     * @return offset of the first char of the token.
+     */
+    public int getStart() {
+        return start;
+    }
+
+    /**
+     * Returns where the token ends in its line.
+     * @return offset just after the last char of the token.
+     */
+    public int getEnd() {
+        return end;
+    }
+
+    /**
+     * Checks whether this token has exactly the same chars as another.
+     * @param other The token to compare against.
+     * @return whether or not the two tokens are the same text.
+     */
+    public boolean contentEquals(Token other) {
+        int length = length();
+        if(other.length() != length) {
+            return false;
+        }
+        for(int i = 0; i < length; i++) {
+            if(charAt(i) != other.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int length() {
+        return end - start;
+    }
+
+    @Override
+    public char charAt(int index) {
+        return line.charAt(start + index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return line.subSequence(this.start + start, this.start + end);
+    }
+
+    @Override
+    public String toString() {
+        return line.subSequence(start, end).toString();
+    }
+}
@@ -0,0 +1,160 @@
+package models;
+
+import java.util.Arrays;
+
+/**
+ * @author agent
+ * Created on 17/10/2026
+ *
+ * Counts how often each distinct token occurs in a chapter. A String is only created the first time
+ * a token is seen; after that the token is found by comparing its chars in place.
+ *
+ * Each entry also has a verdict, a few bits which rules can use to remember what they found out about
+ * the token, e.g. whether it is in the dictionaries, so that is only worked out once per distinct token.
+ */
+public final class TokenTable {
+    private String[] words = new String[64];
+    private int[] counts = new int[64];
+    private int[] verdicts = new int[64];
+    private int size;
+    private int[] slots = new int[128];     // Hash table of entry + 1, 0 meaning an empty slot.
+
+    /**
+     * Count one more occurrence of the token.
+     * @param token The token found.
+     * @return the entry of the token in the table.
+     */
+    public int add(CharSequence token) {
+        return add(token, 1);
+    }
+
+    /**
+     * Add the counts of another table to this one, e.g. the counts of the next part of the chapter.
+     * @param other The table to add.
+     */
+    public void addAll(TokenTable other) {
+        for(int i = 0; i < other.size; i++) {
+            add(other.words[i], other.counts[i]);
+        }
+    }
+
+    /**
+     * Returns the number of times the token has been seen so far.
+     * @param token The token to look for.
+     * @return the count, 0 if the token has not been seen.
+     */
+    public int getCount(CharSequence token) {
+        int entry = slots[findSlot(token)];
+        return entry == 0 ? 0 : counts[entry - 1];
+    }
+
+    private int add(CharSequence token, int count) {
+        int slot = findSlot(token);
+        int entry = slots[slot];
+        if(entry != 0) {
+            counts[entry - 1] += count;
+            return entry - 1;
+        }
+
+        if(size == words.length) {
+            words = Arrays.copyOf(words, size * 2);
+            counts = Arrays.copyOf(counts, size * 2);
+            verdicts = Arrays.copyOf(verdicts, size * 2);
+        }
+        words[size] = token.toString();
+        counts[size] = count;
+        verdicts[size] = 0;
+        slots[slot] = ++size;
+        if(size * 2 > slots.length) {
+            resize();
+        }
+        return size - 1;
+    }
+
+    // The slot holding the token, or the empty slot where it would go.
+    private int findSlot(CharSequence token) {
+        int mask = slots.length - 1;
+        int slot = hash(token) & mask;
+        int entry;
+        while((entry = slots[slot]) != 0 && !matches(words[entry - 1], token)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Returns the number of times the token of the entry has been seen so far.
+     * @param entry An entry returned by add.
+     * @return the count.
+     */
+    public int getCount(int entry) {
+        return counts[entry];
+    }
+
+    /**
+     * Returns the token of the entry.
+     * @param entry An entry returned by add.
+     * @return the token as a String.
+     */
+    public String getWord(int entry) {
+        return words[entry];
+    }
+
+    /**
+     * Returns the verdict kept for the token of the entry.
+     * @param entry An entry returned by add.
+     * @return the verdict bits, 0 if nothing has been kept.
+     */
+    public int getVerdict(int entry) {
+        return verdicts[entry];
+    }
+
+    /**
+     * Keep a verdict for the token of the entry. Verdicts are not carried over by addAll.
+     * @param entry An entry returned by add.
+     * @param verdict The verdict bits.
+     */
+    public void setVerdict(int entry, int verdict) {
+        verdicts[entry] = verdict;
+    }
+
+    /**
+     * Number of distinct tokens in the table.
+     * @return distinct token count.
+     */
+    public int size() {
+        return size;
+    }
+
+    private void resize() {
+        slots = new int[slots.length * 2];
+        int mask = slots.length - 1;
+        for(int i = 0; i < size; i++) {
+            int slot = hash(words[i]) & mask;
+            while(slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = i + 1;
+        }
+    }
+
+    private static boolean matches(String stored, CharSequence token) {
+        if(stored.length() != token.length()) {
+            return false;
+        }
+        for(int i = 0; i < stored.length(); i++) {
+            if(stored.charAt(i) != token.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int hash(CharSequence token) {
+        int h = 0;
+        for(int i = 0; i < token.length(); i++) {
+            h = 31 * h + token.charAt(i);
+        }
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,32 @@
+package models;
+
+/**
+ * @author agent
+ * Created on 17/10/2026
+ *
+ * The kinds of token a line of text is split into by the Tokenizer.
+ */
+public enum TokenType {
+    WORD(false),
+    NUMBER(true),           // Digits only
+    PUNCTUATION(true),      // Punctuation only, e.g. '--' or '."'
+    BRACKET(true),          // One of < > { } ( ) |
+    QUOTE(true),            // A single "
+    SENTENCE_END(true),     // A single . ? or !
+    BLANK(false),           // A single extra space between words
+    EMPTY(false);           // Nothing, e.g. an empty line
+
+    private final boolean punctuationOrNumber;
+
+    TokenType(boolean punctuationOrNumber) {
+        this.punctuationOrNumber = punctuationOrNumber;
+    }
+
+    /**
+     * Checks whether tokens of this type are made up of punctuation or digits only, so are not spellchecked.
+     * @return whether or not the token is punctuation or a number.
+     */
+    public boolean isPunctuationOrNumber() {
+        return punctuationOrNumber;
+    }
+}
@@ -0,0 +1,277 @@
+package models;
+
+/**
+ * @author agent
+ * Created on 17/10/2026
+ *
+ * Splits a line of text into tokens in a single scan, giving the same tokens as splitting it with
+ * the regular expression " ?((?<!\G)((?<=[^\p{Punct}])(?=\p{Punct})|\b))|\s+ ?", i.e.
+ * o Words, numbers and runs of punctuation are separate tokens
+ * o A single space between tokens is dropped, a second space becomes a blank token
+ * o Runs of other whitespace are dropped
+ *
+ * Tokens are classified as they are found, using a lookup table of the ASCII chars, and are given
+ * as views of the line so no Strings are created.
+ *
+ * Usage:
+ *     tokenizer.reset(line);
+ *     while(tokenizer.next()) { ... tokenizer.current() ... }
+ */
+public final class Tokenizer {
+    private static final byte PUNCTUATION = 1;  // As matched by \p{Punct}
+    private static final byte DIGIT = 2;        // As matched by \d
+    private static final byte WHITESPACE = 4;   // As matched by \s
+    private static final byte WORD = 8;         // Letters, digits and _, as used by \b
+
+    private static final byte[] CHAR_CLASSES = new byte[128];
+    private static final TokenType[] SINGLE_CHAR_TYPES = new TokenType[128];
+
+    static {
+        for(char c = 0; c < 128; c++) {
+            if(c > ' ' && c < 127 && !Character.isLetterOrDigit(c)) {
+                CHAR_CLASSES[c] |= PUNCTUATION;
+            }
+            if(c >= '0' && c <= '9') {
+                CHAR_CLASSES[c] |= DIGIT;
+            }
+            if(Character.isLetterOrDigit(c) || c == '_') {
+                CHAR_CLASSES[c] |= WORD;
+            }
+        }
+        for(char c : " \t\n\u000B\f\r".toCharArray()) {
+            CHAR_CLASSES[c] |= WHITESPACE;
+        }
+
+        for(char c : "<>{}()|".toCharArray()) {
+            SINGLE_CHAR_TYPES[c] = TokenType.BRACKET;
+        }
+        for(char c : ".?!".toCharArray()) {
+            SINGLE_CHAR_TYPES[c] = TokenType.SENTENCE_END;
+        }
+        SINGLE_CHAR_TYPES['"'] = TokenType.QUOTE;
+        SINGLE_CHAR_TYPES[' '] = TokenType.BLANK;
+    }
+
+    private CharSequence line = "";
+    private int length;
+    private int index;          // Start of the next token
+    private int searchFrom;     // Where to look for the next separator
+    private int lastSeparatorEnd;
+    private boolean separatorFound;
+    private boolean finished;
+    private int pendingEmpties;     // Empty tokens only given out if a non empty one follows them
+    private int heldStart = -1;     // A token held back until the pending empty ones are given out
+    private int heldEnd;
+
+    private Token current = new Token();
+    private Token previous = new Token();
+
+    /**
+     * Start splitting a new line.
+     * @param line The line to split.
+     */
+    public void reset(CharSequence line) {
+        this.line = line;
+        length = line.length();
+        index = 0;
+        searchFrom = 0;
+        lastSeparatorEnd = 0;
+        separatorFound = false;
+        finished = false;
+        pendingEmpties = 0;
+        heldStart = -1;
+        current.set(line, 0, 0, TokenType.EMPTY);
+        previous.set(line, 0, 0, TokenType.EMPTY);
+    }
+
+    /**
+     * Move on to the next token of the line.
+     * @return false if there are no more tokens.
+     */
+    public boolean next() {
+        Token swap = previous;
+        previous = current;
+        current = swap;
+
+        if(heldStart >= 0) {
+            if(pendingEmpties > 0) {
+                pendingEmpties--;
+                current.set(line, heldStart, heldStart, TokenType.EMPTY);
+            } else {
+                current.set(line, heldStart, heldEnd, classify(heldStart, heldEnd));
+                heldStart = -1;
+            }
+            return true;
+        }
+
+        while(!finished) {
+            int tokenStart = index;
+            int tokenEnd;
+            int separatorStart = findSeparator();
+            if(separatorStart < 0) {
+                finished = true;
+                tokenEnd = length;
+                if(!separatorFound) {
+                    // Nothing to split on, the whole line is one token, even if it is empty.
+                    current.set(line, 0, length, classify(0, length));
+                    return true;
+                }
+            } else {
+                if(separatorStart == 0 && lastSeparatorEnd == 0 && index == 0) {
+                    continue;   // An empty separator at the very start does not give an empty first token
+                }
+                separatorFound = true;
+                tokenEnd = separatorStart;
+                index = lastSeparatorEnd;
+            }
+
+            if(tokenStart == tokenEnd) {
+                pendingEmpties++;
+            } else if(pendingEmpties > 0) {
+                pendingEmpties--;
+                heldStart = tokenStart;
+                heldEnd = tokenEnd;
+                current.set(line, tokenStart, tokenStart, TokenType.EMPTY);
+                return true;
+            } else {
+                current.set(line, tokenStart, tokenEnd, classify(tokenStart, tokenEnd));
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the current token. Only valid until next is called again.
+     * @return the current token.
+     */
+    public Token current() {
+        return current;
+    }
+
+    /**
+     * Returns the token before the current one, or an empty token at the start of the line.
+     * Only valid until next is called again.
+     * @return the previous token.
+     */
+    public Token previous() {
+        return previous;
+    }
+
+    // Find the next separator, as the regular expression's matcher would, returning its start, or -1.
+    private int findSeparator() {
+        for(int position = searchFrom; position <= length; position++) {
+            int end = separatorEndAt(position);
+            if(end >= 0) {
+                lastSeparatorEnd = end;
+                searchFrom = end == position ? end + 1 : end;
+                return position;
+            }
+        }
+        return -1;
+    }
+
+    // End of the separator starting at the position, or -1 if there is none.
+    private int separatorEndAt(int position) {
+        if(position < length && line.charAt(position) == ' ' && splitsAt(position + 1)) {
+            return position + 1;
+        }
+        if(splitsAt(position)) {
+            return position;
+        }
+        if(position < length && is(line.charAt(position), WHITESPACE)) {
+            int end = position + 1;
+            while(end < length && is(line.charAt(end), WHITESPACE)) {
+                end++;
+            }
+            return end;
+        }
+        return -1;
+    }
+
+    // Whether there is a split between two chars: at a word boundary, or where punctuation starts.
+    private boolean splitsAt(int position) {
+        if(position == lastSeparatorEnd) {
+            return false;   // Never straight after the previous separator
+        }
+        if(position > 0 && position < length && !is(line.charAt(position - 1), PUNCTUATION) &&
+                is(line.charAt(position), PUNCTUATION)) {
+            return true;
+        }
+        return isWordBefore(position) != isWordAt(position);
+    }
+
+    private boolean isWordBefore(int position) {
+        if(position == 0) {
+            return false;
+        }
+        char c = line.charAt(position - 1);
+        if(c < 128) {
+            return is(c, WORD);
+        }
+        int codePoint = Character.codePointBefore(line, position);
+        if(Character.getType(codePoint) == Character.NON_SPACING_MARK) {
+            return hasBaseCharacter(position - Character.charCount(codePoint));
+        }
+        return isWord(codePoint);
+    }
+
+    private boolean isWordAt(int position) {
+        if(position == length) {
+            return false;
+        }
+        char c = line.charAt(position);
+        if(c < 128) {
+            return is(c, WORD);
+        }
+        int codePoint = Character.codePointAt(line, position);
+        if(Character.getType(codePoint) == Character.NON_SPACING_MARK) {
+            return hasBaseCharacter(position);
+        }
+        return isWord(codePoint);
+    }
+
+    // Whether the accents before the position are on a letter or digit.
+    private boolean hasBaseCharacter(int position) {
+        for(int i = position - 1; i >= 0; i--) {
+            int codePoint = Character.codePointAt(line, i);
+            if(Character.isLetterOrDigit(codePoint)) {
+                return true;
+            }
+            if(Character.getType(codePoint) != Character.NON_SPACING_MARK) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isWord(int codePoint) {
+        return Character.isLetterOrDigit(codePoint) || codePoint == '_';
+    }
+
+    private static boolean is(char c, byte charClass) {
+        return c < 128 && (CHAR_CLASSES[c] & charClass) != 0;
+    }
+
+    private TokenType classify(int start, int end) {
+        if(start == end) {
+            return TokenType.EMPTY;
+        }
+        char first = line.charAt(start);
+        if(end - start == 1 && first < 128 && SINGLE_CHAR_TYPES[first] != null) {
+            return SINGLE_CHAR_TYPES[first];
+        }
+
+        boolean allPunctuation = true;
+        boolean allDigits = true;
+        for(int i = start; i < end && (allPunctuation || allDigits); i++) {
+            char c = line.charAt(i);
+            allPunctuation &= is(c, PUNCTUATION);
+            allDigits &= is(c, DIGIT);
+        }
+        if(allPunctuation) {
+            return TokenType.PUNCTUATION;
+        }
+        return allDigits ? TokenType.NUMBER : TokenType.WORD;
+    }
+}
@@ -0,0 +1,18 @@
+package models;
+
+/**
+ * @author agent
+ * Created on 17/10/2026
+ *
+ * A rule which flags single words. Only given tokens which are not punctuation or numbers. A word
+ * is flagged by the first rule of the RuleSet which flags it, so the later rules are not run for it.
+ */
+public interface WordRule extends CheckRule {
+    /**
+     * Checks whether the word breaks the rule.
+     * @param previousWord The token before the word on the same line, empty at the start of a line.
+     * @param currentWord The word to check.
+     * @return whether or not the word is flagged.
+     */
+    boolean isFlagged(Token previousWord, Token currentWord);
+}
@@ -0,0 +1,104 @@
+package models;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * @author agent
+ * Created on 17/10/2026
+ *
+ * A small growable set of words, used for the project dictionary, which unlike a HashSet can be
+ * searched with any CharSequence and with the letters of the word folded, without creating a String.
+ */
+public final class WordSet implements Dictionary {
+    private final List<String> words = new ArrayList<>();
+    private int[] slots = new int[16];     // Hash table of word index + 1, 0 meaning an empty slot.
+
+    /**
+     * Class constructor.
+     * @param initialWords The words the set starts out with.
+     */
+    public WordSet(Collection<String> initialWords) {
+        for(String word : initialWords) {
+            add(word);
+        }
+    }
+
+    /**
+     * Add a word to the set.
+     * @param word The word to add.
+     * @return false if the word was already in the set.
+     */
+    public boolean add(String word) {
+        if(contains(word, CaseFolding.EXACT)) {
+            return false;
+        }
+        if((words.size() + 1) * 2 > slots.length) {
+            resize();
+        }
+        words.add(word);
+        insert(words.size() - 1);
+        return true;
+    }
+
+    @Override
+    public boolean contains(CharSequence word, CaseFolding folding) {
+        int mask = slots.length - 1;
+        int slot = hash(word, folding) & mask;
+        int entry;
+        while((entry = slots[slot]) != 0) {
+            if(matches(words.get(entry - 1), word, folding)) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    @Override
+    public int size() {
+        return words.size();
+    }
+
+    @Override
+    public String wordAt(int index) {
+        return words.get(index);
+    }
+
+    private void resize() {
+        slots = new int[slots.length * 2];
+        for(int i = 0; i < words.size(); i++) {
+            insert(i);
+        }
+    }
+
+    private void insert(int index) {
+        int mask = slots.length - 1;
+        int slot = hash(words.get(index), CaseFolding.EXACT) & mask;
+        while(slots[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = index + 1;
+    }
+
+    private static boolean matches(String stored, CharSequence word, CaseFolding folding) {
+        if(stored.length() != word.length()) {
+            return false;
+        }
+        for(int i = 0; i < stored.length(); i++) {
+            if(stored.charAt(i) != folding.fold(word.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int hash(CharSequence word, CaseFolding folding) {
+        int h = 0;
+        for(int i = 0; i < word.length(); i++) {
+            h = 31 * h + folding.fold(word.charAt(i));
+        }
+        return h ^ (h >>> 16);
+    }
+}
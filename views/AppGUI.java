@@ -1,7 +1,12 @@
 package views;
 
 import controllers.AppController;
+import controllers.TaskProgress;
+import models.ReasonCode;
 
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.application.Platform;
 import javafx.beans.value.ChangeListener;
 import javafx.beans.value.ObservableValue;
 import javafx.collections.FXCollections;
@@ -18,7 +23,6 @@ import javafx.scene.control.Label;
 import javafx.scene.control.Menu;
 import javafx.scene.control.MenuBar;
 import javafx.scene.control.MenuItem;
-import javafx.scene.control.TextArea;
 import javafx.scene.control.TextField;
 import javafx.scene.layout.*;
 import javafx.scene.text.Font;
@@ -26,9 +30,11 @@ import javafx.scene.text.FontWeight;
 import javafx.scene.text.Text;
 import javafx.scene.text.TextAlignment;
 import javafx.stage.*;
+import javafx.util.Duration;
 
 import java.io.File;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * @author Izabella Szabo
@@ -37,6 +43,8 @@ import java.util.*;
 public class AppGUI{
     private Stage primaryStage;
     private Stage progressStage;
+    private Timeline progressUpdates;
+    private CompletableFuture<List<String>> pendingSuggestions;    // For the exception being shown
 
     private AppController appController;
 
@@ -200,25 +208,17 @@ public class AppGUI{
             }
 
             // Start importing the project file in a separate thread now to improve performance.
-            Task<String> importConvertToGeneric = new Task<String>() {
-                @Override
-                public String call() throws InterruptedException {
-                    if(file != null) {
-                        return "" + appController.convertToGenericTextFile(file.getAbsolutePath());
+            if(file != null) {
+                CompletableFuture<Boolean> conversion = appController.convertToGenericTextFile(file.getAbsolutePath());
+                TaskProgress conversionProgress = appController.getProgress();
+                conversion.thenAccept(converted -> {
+                    // Cancelling the spellcheck stops the conversion, which is not an error.
+                    if(!converted && !conversionProgress.isCancelled()) {
+                        Platform.runLater(() -> displayErrorMessage("An error occurred while importing and " +
+                                "converting the Chapter File. \nPlease check the error log."));
                     }
-                    return "";
-                }
-            };
-
-            importConvertToGeneric.setOnSucceeded(event -> {
-                if(importConvertToGeneric.getValue().equals("false")){
-                    displayErrorMessage("An error occurred while importing and converting the Chapter File. \nPlease check the error log.");
-                }
-            });
-
-            Thread thread = new Thread(importConvertToGeneric);
-            thread.setDaemon(true);
-            thread.start();
+                });
+            }
         });
         gridPane.add(browseChapterFileBtn, 2, 2);
 
@@ -356,7 +356,7 @@ public class AppGUI{
                 }
             }
 
-            openProgressBar("Spellchecking file...");
+            TaskProgress progress = appController.prepareProcessing();
 
             // Processing has to be run on a separate thread, else the GUI will become unresponsive
             Task<String> task = new Task<String>() {
@@ -377,10 +377,10 @@ public class AppGUI{
                     drawMainWindow();
                 }
             });
+            task.setOnCancelled(event -> closeProgressBar());
 
-            Thread thread = new Thread(task);
-            thread.setDaemon(true);
-            thread.start();
+            openProgressBar("Spellchecking file...", progress, task);
+            appController.runUserTask(task);
         });
 
         HBox hBox1 = new HBox(10);
@@ -519,9 +519,13 @@ public class AppGUI{
     }
 
     /**
-     * The progress spinning wheel is displayed while the file is being spellchecked.
+     * The progress bar is displayed while the file is being spellchecked, showing how far the task has got
+     * and how fast it is going, with a button to cancel it if it can be cancelled.
+     * @param message What is being done.
+     * @param progress The progress of the task.
+     * @param cancellableTask The task, or null if it cannot be cancelled.
      */
-    private void openProgressBar(String message){
+    private void openProgressBar(String message, TaskProgress progress, Task<?> cancellableTask){
         GridPane gridPane = new GridPane();
         gridPane.setAlignment(Pos.CENTER);
         gridPane.setHgap(10);
@@ -532,10 +536,32 @@ public class AppGUI{
         Label progressMsgLbl = new Label(message);
         gridPane.add(progressMsgLbl, 0, 0);
 
-        ProgressIndicator pinWheel = new ProgressIndicator();
-        gridPane.add(pinWheel, 0, 1);
+        ProgressBar progressBar = new ProgressBar(ProgressIndicator.INDETERMINATE_PROGRESS);
+        progressBar.setPrefWidth(260);
+        gridPane.add(progressBar, 0, 1);
+
+        Label progressDetailsLbl = new Label(progress.getDescription());
+        gridPane.add(progressDetailsLbl, 0, 2);
+
+        if(cancellableTask != null) {
+            // The task stops at the next point it can; a new one is not started until it has.
+            Button cancelBtn = new Button("Cancel");
+            cancelBtn.setOnAction(e -> {
+                progress.cancel();
+                cancellableTask.cancel(false);
+            });
+            GridPane.setHalignment(cancelBtn, HPos.RIGHT);
+            gridPane.add(cancelBtn, 0, 3);
+        }
 
-        Scene progressScene = new Scene(gridPane, 300, 150);
+        progressUpdates = new Timeline(new KeyFrame(Duration.millis(250), e -> {
+            progressBar.setProgress(progress.getFraction());
+            progressDetailsLbl.setText(progress.getDescription());
+        }));
+        progressUpdates.setCycleCount(Timeline.INDEFINITE);
+        progressUpdates.play();
+
+        Scene progressScene = new Scene(gridPane, 340, 200);
 
         progressStage = new Stage(StageStyle.DECORATED);
         progressStage.setResizable(false);
@@ -548,9 +574,27 @@ public class AppGUI{
      * Close the progress bar.
      */
     private void closeProgressBar(){
+        progressUpdates.stop();
         progressStage.close();
     }
 
+    /**
+     * Fill the suggestions box for the current exception once the suggestions have been found, which
+     * can take a moment, without holding up the window. Suggestions which arrive for an exception the
+     * user has already moved past are dropped.
+     * @param suggestionsCmbBox The suggestions box.
+     */
+    private void showSuggestions(ComboBox<String> suggestionsCmbBox) {
+        suggestionsCmbBox.getItems().clear();
+        CompletableFuture<List<String>> suggestions = appController.getSuggestions();
+        pendingSuggestions = suggestions;
+        suggestions.thenAccept(words -> Platform.runLater(() -> {
+            if(suggestions == pendingSuggestions) {
+                suggestionsCmbBox.getItems().setAll(words);
+            }
+        }));
+    }
+
     /**
      * The main window is where the exceptions, or incorrect words, are processed by the user.
      * The text of the file is displayed on the left, with details, options, and processing on
@@ -573,7 +617,8 @@ public class AppGUI{
         finishProcessingMenuItem.setOnAction(e -> {
             if(displayConfirmMessage("Are you sure you want to save this project and exit?")) {
                 mainWindowStage.hide();
-                openProgressBar("Finishing up.");
+                TaskProgress progress = appController.prepareFinishing();
+                openProgressBar("Finishing up.", progress, null);
                 // Processing has to be run on a separate thread, else the GUI will become unresponsive
                 Task<String> task = new Task<String>() {
                     @Override
@@ -591,9 +636,7 @@ public class AppGUI{
                     }
                 });
 
-                Thread thread = new Thread(task);
-                thread.setDaemon(true);
-                thread.start();
+                appController.runUserTask(task);
             }
         });
 
@@ -624,12 +667,10 @@ public class AppGUI{
         BorderPane leftSideBdrPne = new BorderPane();
         leftSideBdrPne.setStyle(appStyle);
 
-        TextArea contentTxtArea = new TextArea(appController.getContents());
-        contentTxtArea.setStyle(appStyle + "-fx-focus-color: transparent;");
-        contentTxtArea.setEditable(false);
-        contentTxtArea.setWrapText(true);
+        // Only the paragraphs scrolled into view are laid out, so large chapters open and move at once.
+        ChapterView chapterView = new ChapterView(appController, appStyle);
 
-        leftSideBdrPne.setCenter(contentTxtArea);
+        leftSideBdrPne.setCenter(chapterView);
 
         GridPane statsGrid = new GridPane();
         statsGrid.setStyle(appStyle);
@@ -687,11 +728,11 @@ public class AppGUI{
         undoMessageGridPaneContainer.setStyle(appStyle);
         undoMessageGridPaneContainer.setPadding(new Insets(0, 5, 10, 5));
         undoMessageGridPaneContainer.setVisible(false);
-        ColumnConstraints col80 = new ColumnConstraints();
-        col80.setPercentWidth(80);
+        ColumnConstraints col60 = new ColumnConstraints();
+        col60.setPercentWidth(60);
         ColumnConstraints col20 = new ColumnConstraints();
         col20.setPercentWidth(20);
-        undoMessageGridPaneContainer.getColumnConstraints().addAll(col80, col20);
+        undoMessageGridPaneContainer.getColumnConstraints().addAll(col60, col20, col20);
 
         Label undoMessageLbl = new Label();
         GridPane.setHalignment(undoMessageLbl, HPos.LEFT);
@@ -701,13 +742,33 @@ public class AppGUI{
         Hyperlink undoHyperLink = new Hyperlink("UNDO");
         GridPane.setHalignment(undoHyperLink, HPos.RIGHT);
         GridPane.setValignment(undoHyperLink, VPos.CENTER);
+
+        // Changes can be undone one after the other, and redone until a new change is made.
+        Hyperlink redoHyperLink = new Hyperlink("REDO");
+        GridPane.setHalignment(redoHyperLink, HPos.RIGHT);
+        GridPane.setValignment(redoHyperLink, VPos.CENTER);
+        redoHyperLink.setVisible(false);
+
         undoHyperLink.setOnAction(e -> {
             appController.unApplyLastChange();
-            contentTxtArea.setText(appController.getContents());
+            chapterView.showChanges(appController.getChangedLines());
+            totalErrorsCntLbl.setText("" + appController.getExceptionErrorCount());
+            undoHyperLink.setVisible(appController.canUndo());
+            redoHyperLink.setVisible(appController.canRedo());
             displaySuccessMessage("Un-applied last change.");
         });
         undoMessageGridPaneContainer.add(undoHyperLink, 1, 0);
 
+        redoHyperLink.setOnAction(e -> {
+            appController.reApplyLastChange();
+            chapterView.showChanges(appController.getChangedLines());
+            totalErrorsCntLbl.setText("" + appController.getExceptionErrorCount());
+            undoHyperLink.setVisible(appController.canUndo());
+            redoHyperLink.setVisible(appController.canRedo());
+            displaySuccessMessage("Re-applied last change.");
+        });
+        undoMessageGridPaneContainer.add(redoHyperLink, 2, 0);
+
         topGridPane.add(undoMessageGridPaneContainer, 0, 0);
 
         Button deleteWordBtn = new Button("Delete word");
@@ -733,10 +794,20 @@ public class AppGUI{
         addToBookDicBtn.setVisible(userPermissions.get("Create Project Dic Entry").equals("true"));
         topGridPane.add(addToBookDicBtn, 0, 3);
 
+        Button removeDuplicatesBtn = new Button("Remove all \nDuplicate words");
+        removeDuplicatesBtn.setTextAlignment(TextAlignment.CENTER);
+        removeDuplicatesBtn.setMinWidth(100);
+        removeDuplicatesBtn.setMinHeight(50);
+        GridPane.setHalignment(removeDuplicatesBtn, HPos.CENTER);
+        topGridPane.add(removeDuplicatesBtn, 0, 4);
+
         rightSideBdrPne.setTop(topGridPane);
 
         // Middle Section
         Map<String, String> exceptionDetails = appController.getExceptionDetails(true);
+        if(exceptionDetails == null) {
+            exceptionDetails = Collections.emptyMap();      // No exceptions, the fields are left blank
+        }
 
         GridPane middlePane = new GridPane();
         middlePane.setVgap(10);
@@ -749,6 +820,19 @@ public class AppGUI{
         incorrectWord.requestFocus();
         middlePane.add(incorrectWord, 0, 0, 2, 1);
 
+        // Suggested corrections, choosing one puts it in the incorrect word box ready to be applied.
+        Label suggestionsLbl = new Label("Suggestions:");
+        middlePane.add(suggestionsLbl, 0, 1);
+
+        ComboBox<String> suggestionsCmbBox = new ComboBox<>();
+        showSuggestions(suggestionsCmbBox);
+        suggestionsCmbBox.setOnAction(e -> {
+            if(suggestionsCmbBox.getValue() != null) {
+                incorrectWord.setText(suggestionsCmbBox.getValue());
+            }
+        });
+        middlePane.add(suggestionsCmbBox, 1, 1);
+
         // Exception details
         Label reasonLbl = new Label("Error type:");
         middlePane.add(reasonLbl, 0, 3);
@@ -784,12 +868,33 @@ public class AppGUI{
         bottomGridPane.add(finishButton, 1, 0);
 
         Button nextBtn = new Button("Next");
+
+        // Corrections and undoing them can leave no exceptions, then there is nothing left but to finish.
+        Runnable showNoExceptions = () -> {
+            incorrectWord.clear();
+            exceptionReasonLbl.setText("");
+            exceptionStatusLbl.setText("");
+            showSuggestions(suggestionsCmbBox);
+            currentErrorNoLbl.setText(appController.getCurrentErrorNo());
+            similarErrorsNoLbl.setText(appController.getSimilarErrorCount());
+            chapterView.highlight(null);
+            nextBtn.setVisible(false);
+            finishButton.setVisible(true);
+        };
+        if(exceptionDetails.isEmpty()) {
+            showNoExceptions.run();
+        }
+
         nextBtn.setOnAction(e -> {
-            contentTxtArea.setText(appController.getContents());
             Map<String, String> exception = appController.getExceptionDetails(true);
+            if(exception == null) {
+                showNoExceptions.run();
+                return;
+            }
             incorrectWord.setText(exception.get("Incorrect Word"));
             exceptionReasonLbl.setText(exception.get("Reason"));
             exceptionStatusLbl.setText(exception.get("Status"));
+            showSuggestions(suggestionsCmbBox);
             if(!exceptionStatusLbl.getText().equals("Not Reviewed")) {
                 exceptionStatusLbl.setStyle("-fx-fill: #24a51f");
             }
@@ -800,23 +905,8 @@ public class AppGUI{
                 return;
             }
             similarErrorsNoLbl.setText(appController.getSimilarErrorCount());
-            int i = 1;
-            int position = 0;
-            int occurrence = Integer.parseInt(exception.get("Occurrence"));
-            // The outer loop is needed to get an accurate 'position' value.
-            // The inner loop's split is the split regex used when spellchecking. This loop is needed
-            // to get the correct word and occurrence to be highlighted.
-            for(String s : contentTxtArea.getText().split(" ")) {
-                position += s.length() + 1;
-                for(String innerString : s.split(" ?((?<!\\G)((?<=[^\\p{Punct}])(?=\\p{Punct})|\\b))|\\s+ ?", 0)) {
-                    if (innerString.equals(incorrectWord.getText())) {
-                        if (occurrence == i) {
-                            contentTxtArea.selectRange(position - s.length() - 1, position - 1);
-                        }
-                        i++;
-                    }
-                }
-            }
+            // The position of the word was recorded when spellchecking, so there is no need to search for it.
+            chapterView.highlight(appController.getHighlightRange());
             if(Integer.parseInt(currentErrorNoLbl.getText()) == Integer.parseInt(totalErrorsCntLbl.getText())) {
                 nextBtn.setVisible(false);
                 finishButton.setVisible(true);
@@ -827,30 +917,19 @@ public class AppGUI{
         bottomGridPane.add(nextBtn, 1, 0);
 
         previousBtn.setOnAction(e -> {
-            contentTxtArea.setText(appController.getContents());
             Map<String, String> exception = appController.getExceptionDetails(false);
+            if(exception == null) {
+                showNoExceptions.run();
+                return;
+            }
             incorrectWord.setText(exception.get("Incorrect Word"));
             exceptionReasonLbl.setText(exception.get("Reason"));
             exceptionStatusLbl.setText(exception.get("Status"));
+            showSuggestions(suggestionsCmbBox);
             currentErrorNoLbl.setText(appController.getCurrentErrorNo());
             similarErrorsNoLbl.setText(appController.getSimilarErrorCount());
-            int i = 1;
-            int position = 0;
-            int occurrence = Integer.parseInt(exception.get("Occurrence"));
-            // The outer loop is needed to get an accurate 'position' value.
-            // The inner loop's split is the split regex used when spellchecking. This loop is needed
-            // to get the correct word and occurrence to be highlighted.
-            for(String s : contentTxtArea.getText().split(" ")) {
-                position += s.length() + 1;
-                for(String innerString : s.split(" ?((?<!\\G)((?<=[^\\p{Punct}])(?=\\p{Punct})|\\b))|\\s+ ?", 0)) {
-                    if (innerString.equals(incorrectWord.getText())) {
-                        if (occurrence == i) {
-                            contentTxtArea.selectRange(position - s.length() - 1, position - 1);
-                        }
-                        i++;
-                    }
-                }
-            }
+            // The position of the word was recorded when spellchecking, so there is no need to search for it.
+            chapterView.highlight(appController.getHighlightRange());
             if(Integer.parseInt(currentErrorNoLbl.getText()) < Integer.parseInt(totalErrorsCntLbl.getText())) {
                 nextBtn.setVisible(true);
                 finishButton.setVisible(false);
@@ -860,8 +939,13 @@ public class AppGUI{
         // Setting OnActions of word correction buttons at top of right side.
         deleteWordBtn.setOnAction(e -> {
             if(appController.applyChangeToException("", AppController.Status.DELETED)) {     // Replacing a word with blank essentially deletes it.
+                chapterView.showChanges(appController.getChangedLines());
+                // Lines changed were checked again, which may have found new exceptions.
+                totalErrorsCntLbl.setText("" + appController.getExceptionErrorCount());
                 undoMessageLbl.setText("Deleted phrase.");
                 undoMessageGridPaneContainer.setVisible(true);
+                undoHyperLink.setVisible(true);
+                redoHyperLink.setVisible(false);
                 nextBtn.fire();
             } else {
                 displayErrorMessage("An error occurred while deleting.");
@@ -870,8 +954,12 @@ public class AppGUI{
 
         applyChangesBtn.setOnAction(e -> {
             if(appController.applyChangeToException(incorrectWord.getText(), AppController.Status.CORRECTED)) {
+                chapterView.showChanges(appController.getChangedLines());
+                totalErrorsCntLbl.setText("" + appController.getExceptionErrorCount());
                 undoMessageLbl.setText("Successfully updated the spelling.");
                 undoMessageGridPaneContainer.setVisible(true);
+                undoHyperLink.setVisible(true);
+                redoHyperLink.setVisible(false);
                 nextBtn.fire();
             } else {
                 displayErrorMessage("An error occurred while updating the source file with the corrected phrase.");
@@ -883,14 +971,43 @@ public class AppGUI{
                 return;
             }
             if(appController.applyChangeToException(incorrectWord.getText(), AppController.Status.ADDED_PROJ_DIC)) {
+                chapterView.showChanges(appController.getChangedLines());
+                totalErrorsCntLbl.setText("" + appController.getExceptionErrorCount());
                 undoMessageLbl.setText("Successfully added to Project Dictionary.");
                 undoMessageGridPaneContainer.setVisible(true);
+                undoHyperLink.setVisible(true);
+                redoHyperLink.setVisible(false);
                 nextBtn.fire();
             } else {
                 displayErrorMessage("The word " + incorrectWord.getText() + " already exists in the project dictionary.");
             }
         });
 
+        // Every duplicate not yet reviewed is corrected at once, and undone at once.
+        removeDuplicatesBtn.setOnAction(e -> {
+            Map<Integer, String> duplicates = appController.getNotReviewedExceptions(ReasonCode.DUPLICATE);
+            if(duplicates.isEmpty()) {
+                displayErrorMessage("There are no duplicate words left to remove.");
+                return;
+            }
+            if(!displayConfirmMessage("Are you sure you want to remove all " + duplicates.size() + " duplicate words?")) {
+                return;
+            }
+            if(appController.applyChangesToExceptions(duplicates, AppController.Status.CORRECTED)) {
+                chapterView.showChanges(appController.getChangedLines());
+                totalErrorsCntLbl.setText("" + appController.getExceptionErrorCount());
+                currentErrorNoLbl.setText(appController.getCurrentErrorNo());
+                similarErrorsNoLbl.setText(appController.getSimilarErrorCount());
+                chapterView.highlight(appController.getHighlightRange());
+                undoMessageLbl.setText("Removed " + duplicates.size() + " duplicate words.");
+                undoMessageGridPaneContainer.setVisible(true);
+                undoHyperLink.setVisible(true);
+                redoHyperLink.setVisible(false);
+            } else {
+                displayErrorMessage("An error occurred while removing the duplicate words.");
+            }
+        });
+
         rightSideBdrPne.setBottom(bottomGridPane);
 
         splitPane.getItems().addAll(leftSideBdrPne, rightSideBdrPne);
@@ -909,7 +1026,8 @@ public class AppGUI{
 
         finishButton.setOnAction(e -> {
             mainWindowStage.hide();
-            openProgressBar("Finishing up.");
+            TaskProgress progress = appController.prepareFinishing();
+            openProgressBar("Finishing up.", progress, null);
             // Processing has to be run on a separate thread, else the GUI will become unresponsive
             Task<String> task = new Task<String>() {
                 @Override
@@ -927,9 +1045,7 @@ public class AppGUI{
                 }
             });
 
-            Thread thread = new Thread(task);
-            thread.setDaemon(true);
-            thread.start();
+            appController.runUserTask(task);
         });
 
         Scene mainWindowScene = new Scene(mainContainerBdrPne, mainWindowStage.getWidth(), mainWindowStage.getHeight());
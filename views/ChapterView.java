@@ -0,0 +1,137 @@
+package views;
+
+import controllers.AppController;
+
+import javafx.collections.ObservableListBase;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.text.Text;
+import javafx.scene.text.TextFlow;
+
+/**
+ * @author agent
+ * Created on 17/10/2026
+ *
+ * Shows the chapter being processed one paragraph to a row, taking the lines from the App Controller
+ * as they are scrolled into view, so only the visible paragraphs are ever laid out whatever the size
+ * of the chapter. After a change only the changed paragraphs are shown again.
+ *
+ * The word of the current exception is highlighted in its paragraph.
+ */
+final class ChapterView extends ListView<String> {
+    private static final String HIGHLIGHT_STYLE = "-fx-fill: #d61f1f; -fx-font-weight: bold;";
+
+    private final ChapterLines lines;
+    private int[] highlightRange;   // Line, start and end of the highlighted word, or null
+
+    /**
+     * Class constructor.
+     * @param appController The App Controller whose contents are shown.
+     * @param style The style of the view.
+     */
+    ChapterView(AppController appController, String style) {
+        lines = new ChapterLines(appController);
+        setItems(lines);
+        setStyle(style + "-fx-focus-color: transparent;");
+        setFocusTraversable(false);
+        setCellFactory(listView -> new ParagraphCell());
+    }
+
+    /**
+     * Show the lines changed by the last change, undo or redo again.
+     * @param lineNos The line numbers of the changed lines, in order.
+     */
+    void showChanges(int[] lineNos) {
+        lines.linesChanged(lineNos);
+    }
+
+    /**
+     * Highlight a word, scrolling to its paragraph.
+     * @param range The line of the word and where it starts and ends in the line, or null to highlight nothing.
+     */
+    void highlight(int[] range) {
+        int[] previousRange = highlightRange;
+        highlightRange = range;
+        if(previousRange != null) {
+            lines.linesChanged(new int[] {previousRange[0]});
+        }
+        if(range != null) {
+            lines.linesChanged(new int[] {range[0]});
+            getSelectionModel().select(range[0]);
+            scrollTo(Math.max(range[0] - 2, 0));    // A couple of paragraphs above, for context
+        } else {
+            getSelectionModel().clearSelection();
+        }
+    }
+
+    /**
+     * The lines of the chapter as a list, reading through to the App Controller's contents.
+     */
+    private static final class ChapterLines extends ObservableListBase<String> {
+        private final AppController appController;
+        private final int size;
+
+        ChapterLines(AppController appController) {
+            this.appController = appController;
+            this.size = appController.getLineCount();
+        }
+
+        @Override
+        public String get(int index) {
+            return appController.getLine(index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        void linesChanged(int[] lineNos) {
+            if(lineNos.length == 0) {
+                return;
+            }
+            beginChange();
+            for(int lineNo : lineNos) {
+                // The line it replaced is gone from the contents; the view only needs to know which changed.
+                nextSet(lineNo, null);
+            }
+            endChange();
+        }
+    }
+
+    /**
+     * A paragraph, wrapped to the width of the view, with the highlighted word if it is in it.
+     */
+    private final class ParagraphCell extends ListCell<String> {
+        private final Text before = new Text();
+        private final Text word = new Text();
+        private final Text after = new Text();
+        private final TextFlow paragraph = new TextFlow(before, word, after);
+
+        ParagraphCell() {
+            word.setStyle(HIGHLIGHT_STYLE);
+            paragraph.maxWidthProperty().bind(ChapterView.this.widthProperty().subtract(30));
+            setPrefWidth(0);    // Wrapping, instead of scrolling sideways
+        }
+
+        @Override
+        protected void updateItem(String line, boolean empty) {
+            super.updateItem(line, empty);
+            if(empty || line == null) {
+                setGraphic(null);
+                return;
+            }
+            int[] range = highlightRange;
+            if(range != null && range[0] == getIndex() && range[2] <= line.length()) {
+                before.setText(line.substring(0, range[1]));
+                word.setText(line.substring(range[1], range[2]));
+                after.setText(line.substring(range[2]));
+            } else {
+                before.setText(line);
+                word.setText("");
+                after.setText("");
+            }
+            setGraphic(paragraph);
+        }
+    }
+}